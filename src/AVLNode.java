@@ -1,9 +1,11 @@
 /**
- * Класс узла дерева с полем высоты
+ * Класс узла дерева с полями высоты, размера поддерева и кратности значения
  * @param <T> тип данных узла
  */
 class AVLNode<T> extends Joint<T> {
     private int height;
+    private int size; // Number of elements in the subtree rooted at this node, with multiplicities
+    private int count = 1; // Multiplicity of data, greater than 1 only in multiset mode of AVLTree
 
     /**
      * Конструктор листа с данными и высотой
@@ -12,6 +14,7 @@ class AVLNode<T> extends Joint<T> {
     public AVLNode(T data) {
         super(data);
         this.height = 0; // Высота листа равна 0
+        this.size = 1;
     }
 
     /**
@@ -23,6 +26,7 @@ class AVLNode<T> extends Joint<T> {
     public AVLNode(T data, AVLNode<T> left, AVLNode<T> right) {
         super(data, left, right);
         this.height = 1 + Math.max(left.getHeight(), right.getHeight());
+        this.size = 1 + left.getSize() + right.getSize();
     }
 
     public int getHeight() {
@@ -32,4 +36,20 @@ class AVLNode<T> extends Joint<T> {
     public void setHeight(int height) {
         this.height = height;
     }
-}
\ No newline at end of file
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
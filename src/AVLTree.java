@@ -1,25 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Класс AVLTree - реализация самобалансирующегося AVL дерева.
  *
  * Основные методы:
  * <ul>
- *     <li>{@link #insert(Comparable)} - Вставка элемента в дерево</li>
- *     <li>{@link #delete(Comparable)} - Удаление элемента из дерева</li>
+ *     <li>{@link #insert(Object)} - Вставка элемента в дерево</li>
+ *     <li>{@link #delete(Object)} - Удаление элемента из дерева</li>
  *     <li>{@link #balance(AVLNode)} - Балансировка узла дерева</li>
  *     <li>{@link #rotateLeft(AVLNode)} - Левый поворот для балансировки</li>
  *     <li>{@link #rotateRight(AVLNode)} - Правый поворот для балансировки</li>
  *     <li>{@link #iterator()} - Итератор для обхода дерева</li>
+ *     <li>{@link #spliterator()}, {@link #stream()}, {@link #parallelStream()} - Потоки, делятся по поддеревьям</li>
+ *     <li>{@link #size()} - Количество элементов, O(1)</li>
+ *     <li>{@link #select(int)} - k-й по возрастанию элемент, O(logN)</li>
+ *     <li>{@link #rank(Object)} - Количество элементов меньше заданного, O(logN)</li>
+ *     <li>{@link #percentile(double)} - Перцентиль по методу ближайшего ранга, O(logN)</li>
+ *     <li>{@link #floor(Object)}, {@link #ceiling(Object)}, {@link #lower(Object)},
+ *     {@link #higher(Object)}, {@link #first()}, {@link #last()} - Навигация, O(logN)</li>
+ *     <li>{@link #range(Object, Object)}, {@link #headSet(Object)}, {@link #tailSet(Object)}
+ *     и их descending-варианты - Ленивые итераторы по диапазону: O(logN) на старт и O(k) на k элементов</li>
+ *     <li>{@link #descendingIterator()} - Обход по убыванию,
+ *     {@link #topK(int, Object[])}, {@link #bottomK(int, Object[])} - k наибольших/наименьших в буфер
+ *     без выделения памяти, O(logN + k)</li>
+ *     <li>{@link #fromSorted(List)} - Построение идеально сбалансированного дерева из отсортированных данных, O(n)</li>
+ *     <li>{@link #freeze()} - Неизменяемый индекс в раскладке Эйтцингера для фаз только чтения, O(n);
+ *     {@link #freeze(ToIntFunction)} - то же для int ключей в плоском int[], поиск с холодным кэшем примерно втрое быстрее дерева</li>
+ *     <li>{@link #bulkInsert(Collection)} - Пакетная вставка: сортировка и слияние с деревом, O(n + m logm);
+ *     элементы за краями дерева присоединяются через join, почти упорядоченный поток - амортизированно O(1) на элемент</li>
+ *     <li>{@link #join(AVLTree, AVLTree)}, {@link #split(Object)} - Слияние и разрезание деревьев, O(logN)</li>
+ *     <li>{@link #union(AVLTree, AVLTree)}, {@link #intersection(AVLTree, AVLTree)},
+ *     {@link #difference(AVLTree, AVLTree)} - Параллельные операции над множествами на основе join,
+ *     O(m log(n/m + 1)) работы и O(log^2 n) глубины</li>
  * </ul>
+ * Каждый узел хранит размер своего поддерева, он поддерживается при вставке, удалении и поворотах.
+ * В режиме мультимножества ({@link #AVLTree(boolean)}) узел хранит кратность значения,
+ * размер поддерева, {@link #rank(Object)}, {@link #select(int)} и итераторы учитывают кратности.
+ * Подклассы могут хранить в узлах свои сводки поддерева через {@link #createNode(Object)} и {@link #update(AVLNode)},
+ * например {@link AggregateAVLTree}.
  *
- * @param <T> Тип данных узла дерева, должен быть Comparable.
+ * Порядок задаёт Comparator из конструктора, без него - естественный порядок (T должен быть Comparable),
+ * как в TreeMap. {@link #byIntKey(ToIntFunction)} и {@link #byLongKey(ToLongFunction)} сравнивают
+ * примитивный ключ записи без обёрток.
+ *
+ * @param <T> Тип данных узла дерева
  */
-public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
+public class AVLTree<T> implements Iterable<T> {
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13; // Arrays.parallelSort does not split smaller arrays anyway
+    private static final int PARALLEL_SET_THRESHOLD = 1 << 12; // Smaller set operations are not worth a fork
+
     private AVLNode<T> root;
+    private final boolean multiset; // Equal elements are counted in one node instead of being dropped
+    private final Comparator<? super T> comparator; // null means natural order
+
+    public AVLTree() {
+        this(null, false);
+    }
+
+    /**
+     * @param multiset режим мультимножества: узел хранит кратность значения, insert её увеличивает, delete уменьшает,
+     *                 size, rank, select и итераторы учитывают кратности
+     */
+    public AVLTree(boolean multiset) {
+        this(null, multiset);
+    }
+
+    /**
+     * @param comparator порядок элементов, null - естественный порядок
+     */
+    public AVLTree(Comparator<? super T> comparator) {
+        this(comparator, false);
+    }
+
+    public AVLTree(Comparator<? super T> comparator, boolean multiset) {
+        this.comparator = comparator;
+        this.multiset = multiset;
+    }
 
+    /**
+     * Tree ordered by int key of elements, e.g. {@code AVLTree.byIntKey(bulb -> bulb.P)}.
+     * Keys are compared as primitives, no wrapper per element.
+     * Every call creates a new comparator, so {@link #join(AVLTree, AVLTree)} and set operations between trees
+     * from separate calls merge element by element; for O(logN) join create the second tree
+     * with {@code new AVLTree<>(first.comparator())}
+     */
+    public static <T> AVLTree<T> byIntKey(ToIntFunction<? super T> key) {
+        return new AVLTree<>(Comparator.comparingInt(key));
+    }
+
+    /**
+     * Tree ordered by long key of elements, see {@link #byIntKey(ToIntFunction)} about sharing the comparator
+     */
+    public static <T> AVLTree<T> byLongKey(ToLongFunction<? super T> key) {
+        return new AVLTree<>(Comparator.comparingLong(key));
+    }
+
+    public boolean isMultiset() {
+        return multiset;
+    }
+
+    /**
+     * Comparator of tree, null for natural order
+     */
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Compares elements in order of tree. Natural order calls compareTo directly, like TreeMap
+     */
+    @SuppressWarnings("unchecked")
+    protected final int compare(T a, T b) {
+        return comparator == null ? ((Comparable<? super T>) a).compareTo(b) : comparator.compare(a, b);
+    }
 
 // nvrmnd
 
@@ -31,16 +139,155 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         root = insert(root, data);
     }
 
+    /**
+     * Builds perfectly balanced tree from ascending data. O(n)
+     * Adjacent duplicates are dropped, like in {@link #insert(Object)}.
+     * @param sorted data in ascending order
+     * @throws IllegalArgumentException if data is not sorted
+     */
+    public static <T extends Comparable<? super T>> AVLTree<T> fromSorted(List<? extends T> sorted) {
+        return fromSorted(sorted, null);
+    }
+
+    /**
+     * Builds perfectly balanced tree from data, ascending in order of comparator. O(n)
+     * @param comparator порядок элементов, null - естественный порядок
+     * @throws IllegalArgumentException if data is not sorted
+     */
+    public static <T> AVLTree<T> fromSorted(List<? extends T> sorted, Comparator<? super T> comparator) {
+        Object[] items = sorted.toArray();
+        AVLTree<T> tree = new AVLTree<>(comparator);
+        int n = tree.dropDuplicates(items, items.length, true);
+        tree.root = tree.build(items, 0, n - 1);
+        return tree;
+    }
+
+    /**
+     * Inserts all elements of collection. O(n + m logm)
+     * The batch is sorted (in parallel for large batches). Elements below the minimum or above the maximum
+     * of the tree are built into balanced subtrees and attached with join in O(k + logN), so appending
+     * a nearly sorted stream (timestamps) costs amortized O(1) per element: TimSort is linear on sorted runs.
+     * Remaining elements are merged with elements of tree, and the tree is rebuilt balanced in one pass.
+     * If they are few compared with the tree, they are inserted element by element,
+     * because O(k logn) is cheaper than rebuild then.
+     * In multiset mode elements are always inserted one by one, O(m logn).
+     * @param items elements to insert
+     */
+    @SuppressWarnings("unchecked")
+    public void bulkInsert(Collection<? extends T> items) {
+        Object[] batch = items.toArray();
+        int m = batch.length;
+        int n = size();
+        if (m == 0) {
+            return;
+        }
+        if (multiset) { // Merge below keeps one copy
+            for (Object item : batch) {
+                insert((T) item);
+            }
+            return;
+        }
+
+        if (m >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(batch, (a, b) -> compare((T) a, (T) b));
+        } else {
+            Arrays.sort(batch, (a, b) -> compare((T) a, (T) b));
+        }
+        m = dropDuplicates(batch, m, false);
+        if (root == null) {
+            root = build(batch, 0, m - 1);
+            return;
+        }
+
+        // batch[0..lo) are below the tree, batch[hi..m) are above it, they are joined without touching the tree
+        T min = first();
+        T max = last();
+        int lo = 0;
+        while (lo < m && compare((T) batch[lo], min) < 0) {
+            lo++;
+        }
+        int hi = m;
+        while (hi > lo && compare((T) batch[hi - 1], max) > 0) {
+            hi--;
+        }
+        AVLNode<T> below = build(batch, 0, lo - 1);
+        AVLNode<T> above = build(batch, hi, m - 1);
+
+        int k = hi - lo;
+        if (k > 0 && (long) k * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+            for (int i = lo; i < hi; i++) {
+                root = insert(root, (T) batch[i]);
+            }
+        } else if (k > 0) {
+            Object[] merged = new Object[n + k];
+            int count = 0;
+            int j = lo;
+            for (T current : this) { // O(n + k) - Merge of two sorted sequences
+                while (j < hi && compare((T) batch[j], current) < 0) {
+                    merged[count++] = batch[j++];
+                }
+                if (j < hi && compare((T) batch[j], current) == 0) {
+                    j++; // Already in tree
+                }
+                merged[count++] = current;
+            }
+            root = build(merged, 0, count - 1); // Middle elements are inside [min, max], all are merged in the loop
+        }
+        root = join2(join2(below, root), above);
+    }
+
+    /**
+     * Compacts sorted array in place, removing adjacent duplicates. O(n)
+     * @return new length
+     */
+    @SuppressWarnings("unchecked")
+    private int dropDuplicates(Object[] items, int length, boolean checkOrder) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (count > 0) {
+                int cmp = compare((T) items[count - 1], (T) items[i]);
+                if (cmp == 0) {
+                    continue;
+                }
+                if (checkOrder && cmp > 0) {
+                    throw new IllegalArgumentException("Data is not sorted at index " + i);
+                }
+            }
+            items[count++] = items[i];
+        }
+        return count;
+    }
+
+    /**
+     * Builds balanced subtree from sorted items[lo..hi] with correct heights and sizes. O(n)
+     */
+    @SuppressWarnings("unchecked")
+    private AVLNode<T> build(Object[] items, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        AVLNode<T> node = createNode((T) items[mid]);
+        node.Left = build(items, lo, mid - 1);
+        node.Right = build(items, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
     private AVLNode<T> insert(AVLNode<T> node, T data) {
         if (node == null) {
-            return new AVLNode<>(data);
+            return createNode(data);
         }
 
-        int cmp = data.compareTo(node.data);
+        int cmp = compare(data, node.data);
         if (cmp < 0) {
             node.Left = insert((AVLNode<T>) node.Left, data);
         } else if (cmp > 0) {
             node.Right = insert((AVLNode<T>) node.Right, data);
+        } else if (multiset) {
+            node.setCount(node.getCount() + 1); // Кратность растёт, форма дерева не меняется
+            update(node);
+            return node;
         } else {
             return node; // Дубликаты не добавляем
         }
@@ -50,10 +297,33 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
 
     /**
      * Delete element(tree/subtree) - data from AVL
+     * In multiset mode removes one occurrence
      * (O(logN)/O(n))
      */
     public void delete(T data) {
-        root = delete(root, data);
+        root = delete(root, data, false);
+    }
+
+    /**
+     * Removes all occurrences of data (same as {@link #delete(Object)} in set mode). O(logN)
+     */
+    public void deleteAll(T data) {
+        root = delete(root, data, true);
+    }
+
+    /**
+     * Multiplicity of data: 0 or 1 in set mode. O(logN)
+     */
+    public int count(T data) {
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                return node.getCount();
+            }
+            node = (AVLNode<T>) (cmp < 0 ? node.Left : node.Right);
+        }
+        return 0;
     }
 
     /**
@@ -61,18 +331,23 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
      *      * (O(logN)/O(n))
      * @param node
      * @param data
+     * @param all remove node with all occurrences, not only one
      * @return
      */
-    private AVLNode<T> delete(AVLNode<T> node, T data) {
+    private AVLNode<T> delete(AVLNode<T> node, T data, boolean all) {
         if (node == null) {
             return null;
         }
 
-        int cmp = data.compareTo(node.data);
+        int cmp = compare(data, node.data);
         if (cmp < 0) {
-            node.Left = delete((AVLNode<T>) node.Left, data);
+            node.Left = delete((AVLNode<T>) node.Left, data, all);
         } else if (cmp > 0) {
-            node.Right = delete((AVLNode<T>) node.Right, data);
+            node.Right = delete((AVLNode<T>) node.Right, data, all);
+        } else if (!all && node.getCount() > 1) {
+            node.setCount(node.getCount() - 1);
+            update(node);
+            return node;
         } else {
             if (node.Left == null) {
                 return (AVLNode<T>) node.Right;
@@ -81,7 +356,8 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
             } else {
                 AVLNode<T> min = findMin((AVLNode<T>) node.Right);
                 node.data = min.data;
-                node.Right = delete((AVLNode<T>) node.Right, node.data);
+                node.setCount(min.getCount());
+                node.Right = delete((AVLNode<T>) node.Right, node.data, true);
             }
         }
 
@@ -100,6 +376,493 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         return node;
     }
 
+    /**
+     * Checks if element is in tree. O(logN)
+     */
+    public boolean contains(T data) {
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                return true;
+            }
+            node = (AVLNode<T>) (cmp < 0 ? node.Left : node.Right);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest element or null if tree is empty. O(logN)
+     */
+    public T first() {
+        return root == null ? null : findMin(root).data;
+    }
+
+    /**
+     * Returns the greatest element or null if tree is empty. O(logN)
+     */
+    public T last() {
+        if (root == null) {
+            return null;
+        }
+        AVLNode<T> node = root;
+        while (node.Right != null) {
+            node = (AVLNode<T>) node.Right;
+        }
+        return node.data;
+    }
+
+    /**
+     * Returns the greatest element less than or equal to data, or null. O(logN)
+     */
+    public T floor(T data) {
+        return below(data, true);
+    }
+
+    /**
+     * Returns the greatest element strictly less than data, or null. O(logN)
+     */
+    public T lower(T data) {
+        return below(data, false);
+    }
+
+    /**
+     * Returns the smallest element greater than or equal to data, or null. O(logN)
+     */
+    public T ceiling(T data) {
+        return above(data, true);
+    }
+
+    /**
+     * Returns the smallest element strictly greater than data, or null. O(logN)
+     */
+    public T higher(T data) {
+        return above(data, false);
+    }
+
+    private T below(T data, boolean inclusive) {
+        T best = null;
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp > 0 || (inclusive && cmp == 0)) {
+                best = node.data; // Candidate, look for a greater one on the right
+                if (cmp == 0) {
+                    break;
+                }
+                node = (AVLNode<T>) node.Right;
+            } else {
+                node = (AVLNode<T>) node.Left;
+            }
+        }
+        return best;
+    }
+
+    private T above(T data, boolean inclusive) {
+        T best = null;
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                best = node.data; // Candidate, look for a smaller one on the left
+                if (cmp == 0) {
+                    break;
+                }
+                node = (AVLNode<T>) node.Left;
+            } else {
+                node = (AVLNode<T>) node.Right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lazy ascending iteration over [lo, hi). O(logN) to start, O(1) amortized per element
+     */
+    public Iterable<T> range(T lo, T hi) {
+        return () -> new RangeIterator(root, lo, hi, false);
+    }
+
+    /**
+     * Lazy ascending iteration over elements less than hi
+     */
+    public Iterable<T> headSet(T hi) {
+        return () -> new RangeIterator(root, null, hi, false);
+    }
+
+    /**
+     * Lazy ascending iteration over elements greater than or equal to lo
+     */
+    public Iterable<T> tailSet(T lo) {
+        return () -> new RangeIterator(root, lo, null, false);
+    }
+
+    /**
+     * Descending iterator, from the greatest element to the smallest: O(logN) on start, O(1) amortized per element
+     */
+    public Iterator<T> descendingIterator() {
+        return new RangeIterator(root, null, null, true);
+    }
+
+    /**
+     * Writes min(k, size, buffer.length) greatest elements to buffer, from the greatest one.
+     * Only O(logN + k) nodes are visited and nothing is allocated, so buffer can be reused between calls.
+     * @return number of elements written
+     */
+    public int topK(int k, T[] buffer) {
+        return collect(root, buffer, 0, Math.min(k, buffer.length), true);
+    }
+
+    /**
+     * Writes min(k, size, buffer.length) smallest elements to buffer, from the smallest one.
+     * Only O(logN + k) nodes are visited and nothing is allocated.
+     * @return number of elements written
+     */
+    public int bottomK(int k, T[] buffer) {
+        return collect(root, buffer, 0, Math.min(k, buffer.length), false);
+    }
+
+    /**
+     * In-order (or reverse in-order) walk, which stops when limit elements are written.
+     * Recursion depth is the tree height, so the stack replaces an iterator object
+     */
+    private int collect(AVLNode<T> node, T[] buffer, int filled, int limit, boolean descending) {
+        if (node == null || filled >= limit) {
+            return filled;
+        }
+        filled = collect((AVLNode<T>) (descending ? node.Right : node.Left), buffer, filled, limit, descending);
+        for (int copies = node.getCount(); copies > 0 && filled < limit; copies--) {
+            buffer[filled++] = node.data;
+        }
+        return collect((AVLNode<T>) (descending ? node.Left : node.Right), buffer, filled, limit, descending);
+    }
+
+    /**
+     * Lazy descending iteration over [lo, hi), from the greatest element to the smallest
+     */
+    public Iterable<T> descendingRange(T lo, T hi) {
+        return () -> new RangeIterator(root, lo, hi, true);
+    }
+
+    /**
+     * Lazy descending iteration over elements less than hi
+     */
+    public Iterable<T> descendingHeadSet(T hi) {
+        return () -> new RangeIterator(root, null, hi, true);
+    }
+
+    /**
+     * Lazy descending iteration over elements greater than or equal to lo
+     */
+    public Iterable<T> descendingTailSet(T lo) {
+        return () -> new RangeIterator(root, lo, null, true);
+    }
+
+    /**
+     * Joins two trees, all elements of left must be less than all elements of right. O(logN)
+     * Both trees are consumed: their nodes are reused by the result and they are left empty.
+     * Result is of the same kind as left tree (see {@link #createEmpty()}), so both trees must be of one kind.
+     * If nodes of right tree can not be reused (see {@link #canShareNodes(AVLTree)}), its elements are inserted
+     * into left one instead, O(m logN).
+     * @throws IllegalArgumentException if trees are of different kinds or overlap, both trees are left untouched then
+     */
+    public static <T> AVLTree<T> join(AVLTree<T> left, AVLTree<T> right) {
+        checkSameKind(left, right);
+        if (!left.canShareNodes(right)) {
+            return joinByElements(left, right);
+        }
+        if (left.root != null && right.root != null && left.compare(left.last(), right.first()) >= 0) {
+            throw new IllegalArgumentException("All elements of left tree must be less than elements of right tree");
+        }
+        AVLTree<T> result = left.createEmpty();
+        result.root = result.join2(left.root, right.root);
+        left.root = null;
+        right.root = null;
+        return result;
+    }
+
+    /**
+     * Splits tree by key. O(logN)
+     * This tree keeps elements less than key, elements greater than or equal to key are moved to returned tree.
+     */
+    public AVLTree<T> split(T key) {
+        Split<T> parts = split(root, key);
+        AVLTree<T> tail = createEmpty();
+        tail.root = parts.pivot == null ? parts.right : join(null, parts.pivot, parts.right);
+        root = parts.left;
+        return tail;
+    }
+
+    /**
+     * Union of two trees, computed in parallel on the common ForkJoinPool.
+     * O(m log(n/m + 1)) work, m <= n are sizes of trees.
+     * Both trees are consumed: their nodes are reused by the result and they are left empty.
+     */
+    public static <T> AVLTree<T> union(AVLTree<T> a, AVLTree<T> b) {
+        return setOperation(a, b, SetOperation.UNION);
+    }
+
+    /**
+     * Intersection of two trees, computed in parallel on the common ForkJoinPool.
+     * O(m log(n/m + 1)) work. Both trees are consumed and left empty.
+     */
+    public static <T> AVLTree<T> intersection(AVLTree<T> a, AVLTree<T> b) {
+        return setOperation(a, b, SetOperation.INTERSECTION);
+    }
+
+    /**
+     * Difference a \ b, computed in parallel on the common ForkJoinPool.
+     * O(m log(n/m + 1)) work. Both trees are consumed and left empty.
+     */
+    public static <T> AVLTree<T> difference(AVLTree<T> a, AVLTree<T> b) {
+        return setOperation(a, b, SetOperation.DIFFERENCE);
+    }
+
+    private static <T> AVLTree<T> setOperation(AVLTree<T> a, AVLTree<T> b, SetOperation op) {
+        if (a == b) {
+            throw new IllegalArgumentException("Set operation needs two different trees");
+        }
+        if (a.multiset || b.multiset) {
+            throw new IllegalArgumentException("Set operations are not defined for multiset trees");
+        }
+        checkSameKind(a, b); // Before roots are detached, so rejected trees keep their elements
+        if (!a.canShareNodes(b)) {
+            return setOperationByElements(a, b, op);
+        }
+        AVLTree<T> result = a.createEmpty(); // Same kind as a, nodes of both trees are reused
+        AVLNode<T> first = a.root;
+        AVLNode<T> second = b.root;
+        a.root = null;
+        b.root = null;
+        result.root = ForkJoinPool.commonPool().invoke(result.new SetTask(first, second, op));
+        return result;
+    }
+
+    private enum SetOperation { UNION, INTERSECTION, DIFFERENCE }
+
+    // Join for trees, whose nodes can not be moved: right elements are checked and inserted in order of left. O(m logN)
+    private static <T> AVLTree<T> joinByElements(AVLTree<T> left, AVLTree<T> right) {
+        List<T> elements = new ArrayList<>(right.size());
+        right.forEach(elements::add);
+        if (left.root != null) {
+            T last = left.last();
+            for (T element : elements) {
+                if (left.compare(last, element) >= 0) {
+                    throw new IllegalArgumentException("All elements of left tree must be less than elements of right tree");
+                }
+            }
+        }
+        AVLTree<T> result = left.createEmpty();
+        result.root = left.root;
+        left.root = null;
+        right.root = null;
+        result.bulkInsert(elements); // Elements above the tree are built into a subtree and joined
+        return result;
+    }
+
+    // Set operation for trees, whose nodes can not be moved. Result keeps order of a, membership in b is checked by b
+    private static <T> AVLTree<T> setOperationByElements(AVLTree<T> a, AVLTree<T> b, SetOperation op) {
+        AVLTree<T> result = a.createEmpty();
+        List<T> elements = new ArrayList<>();
+        if (op == SetOperation.UNION) {
+            b.forEach(elements::add);
+            result.root = a.root; // a's nodes are reused, elements of b are merged in
+        } else {
+            boolean keepCommon = op == SetOperation.INTERSECTION;
+            for (T element : a) {
+                if (b.contains(element) == keepCommon) {
+                    elements.add(element);
+                }
+            }
+        }
+        a.root = null;
+        b.root = null;
+        result.bulkInsert(elements);
+        return result;
+    }
+
+    // Nodes of one tree are moved into the other, so node type and its summaries must match
+    private static <T> void checkSameKind(AVLTree<T> a, AVLTree<T> b) {
+        if (!a.isSameKind(b) || !b.isSameKind(a)) {
+            throw new IllegalArgumentException("Trees of different kinds: " + a.getClass().getSimpleName()
+                    + " and " + b.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Result of split: elements less than key, node equal to key (or null), elements greater than key
+     */
+    private static final class Split<T> {
+        final AVLNode<T> left;
+        final AVLNode<T> pivot;
+        final AVLNode<T> right;
+
+        Split(AVLNode<T> left, AVLNode<T> pivot, AVLNode<T> right) {
+            this.left = left;
+            this.pivot = pivot;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Splits subtree by key, reusing its nodes. O(logN)
+     */
+    private Split<T> split(AVLNode<T> node, T key) {
+        if (node == null) {
+            return new Split<>(null, null, null);
+        }
+        AVLNode<T> left = (AVLNode<T>) node.Left;
+        AVLNode<T> right = (AVLNode<T>) node.Right;
+        int cmp = compare(key, node.data);
+        if (cmp == 0) {
+            node.Left = null;
+            node.Right = null;
+            update(node);
+            return new Split<>(left, node, right);
+        }
+        if (cmp < 0) {
+            Split<T> parts = split(left, key);
+            return new Split<>(parts.left, parts.pivot, join(parts.right, node, right));
+        }
+        Split<T> parts = split(right, key);
+        return new Split<>(join(left, node, parts.left), parts.pivot, parts.right);
+    }
+
+    /**
+     * Joins left subtree, pivot node and right subtree (left < pivot < right). O(|h(left) - h(right)|)
+     * Descends along the spine of the higher tree to the subtree of matching height,
+     * then rebalances on the way up with the usual {@link #balance(AVLNode)}.
+     */
+    private AVLNode<T> join(AVLNode<T> left, AVLNode<T> pivot, AVLNode<T> right) {
+        int hl = getHeight(left);
+        int hr = getHeight(right);
+        if (hl > hr + 1) {
+            left.Right = join((AVLNode<T>) left.Right, pivot, right);
+            return balance(left);
+        }
+        if (hr > hl + 1) {
+            right.Left = join(left, pivot, (AVLNode<T>) right.Left);
+            return balance(right);
+        }
+        pivot.Left = left;
+        pivot.Right = right;
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Joins two subtrees without pivot (left < right): the greatest node of left becomes the pivot. O(logN)
+     */
+    private AVLNode<T> join2(AVLNode<T> left, AVLNode<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        AVLNode<T> max = findMax(left);
+        left = removeMax(left);
+        return join(left, max, right);
+    }
+
+    private AVLNode<T> findMax(AVLNode<T> node) {
+        while (node.Right != null) {
+            node = (AVLNode<T>) node.Right;
+        }
+        return node;
+    }
+
+    private AVLNode<T> removeMax(AVLNode<T> node) {
+        if (node.Right == null) {
+            return (AVLNode<T>) node.Left;
+        }
+        node.Right = removeMax((AVLNode<T>) node.Right);
+        return balance(node);
+    }
+
+    /**
+     * Join-based set operation (Blelloch, Ferizovic, Sun): split first tree by the root of second one,
+     * solve both halves in parallel and join the results.
+     * Halves work on disjoint nodes, so tasks do not need synchronization.
+     * ForkJoinTask is Serializable, but tasks are never serialized
+     */
+    @SuppressWarnings("serial")
+    private final class SetTask extends RecursiveTask<AVLNode<T>> {
+        private final AVLNode<T> first;
+        private final AVLNode<T> second;
+        private final SetOperation op;
+
+        SetTask(AVLNode<T> first, AVLNode<T> second, SetOperation op) {
+            this.first = first;
+            this.second = second;
+            this.op = op;
+        }
+
+        @Override
+        protected AVLNode<T> compute() {
+            if (first == null) {
+                return op == SetOperation.UNION ? second : null;
+            }
+            if (second == null) {
+                return op == SetOperation.INTERSECTION ? null : first;
+            }
+            int work = getSize(first) + getSize(second); // Before split, it reuses nodes of first tree
+            AVLNode<T> pivot = second;
+            AVLNode<T> secondLeft = (AVLNode<T>) second.Left;
+            AVLNode<T> secondRight = (AVLNode<T>) second.Right;
+            Split<T> parts = split(first, pivot.data);
+
+            AVLNode<T> left;
+            AVLNode<T> right;
+            if (work >= PARALLEL_SET_THRESHOLD) {
+                SetTask leftTask = new SetTask(parts.left, secondLeft, op);
+                leftTask.fork();
+                right = new SetTask(parts.right, secondRight, op).compute();
+                left = leftTask.join();
+            } else {
+                left = new SetTask(parts.left, secondLeft, op).compute();
+                right = new SetTask(parts.right, secondRight, op).compute();
+            }
+
+            boolean keepPivot = op == SetOperation.UNION
+                    || (op == SetOperation.INTERSECTION && parts.pivot != null);
+            return keepPivot ? AVLTree.this.join(left, pivot, right) : join2(left, right);
+        }
+    }
+
+    /**
+     * Snapshot of elements as immutable {@link EytzingerIndex} for read-only phases. O(n)
+     * Later changes of tree do not affect the index.
+     * Elements stay references, so for boxed keys lookups are not faster than in tree,
+     * see {@link #freeze(ToIntFunction)}.
+     */
+    public EytzingerIndex<T> freeze() {
+        return new EytzingerIndex<>(iterator(), size(), comparator);
+    }
+
+    /**
+     * Snapshot of int keys of elements as immutable {@link IntEytzingerIndex}. O(n)
+     * Keys are kept in a plain int[], so lookups compare primitives without following references to elements.
+     * Tree order must agree with the key, e.g. natural order of Integer or {@link #byIntKey(ToIntFunction)}
+     * with the same key; equal keys (multiset copies) are stored once.
+     * @throws IllegalArgumentException if keys of elements are not ascending in tree order
+     */
+    public IntEytzingerIndex freeze(ToIntFunction<? super T> key) {
+        int[] keys = new int[size()];
+        int distinct = 0;
+        for (T element : this) {
+            int k = key.applyAsInt(element);
+            if (distinct > 0 && k <= keys[distinct - 1]) {
+                if (k == keys[distinct - 1]) {
+                    continue;
+                }
+                throw new IllegalArgumentException("Keys are not ascending in tree order: " + keys[distinct - 1] + ", " + k);
+            }
+            keys[distinct++] = k;
+        }
+        return new IntEytzingerIndex(distinct == keys.length ? keys : Arrays.copyOf(keys, distinct));
+    }
+
     /**
      * Returns root of tree
      * @return
@@ -108,11 +871,100 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         return root;
     }
 
+    /**
+     * Returns number of elements in tree, with multiplicities in multiset mode. O(1)
+     */
+    public int size() {
+        return getSize(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns k-th smallest element (k starts from 0), equal elements take count(data) positions. O(logN)
+     * @param k index of element in sorted order
+     * @throws IndexOutOfBoundsException if k is not in [0, size)
+     */
+    public T select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", size: " + size());
+        }
+        AVLNode<T> node = root;
+        while (true) {
+            int leftSize = getSize((AVLNode<T>) node.Left);
+            if (k < leftSize) {
+                node = (AVLNode<T>) node.Left;
+            } else if (k >= leftSize + node.getCount()) {
+                k -= leftSize + node.getCount(); // Skip left subtree and all copies in current node
+                node = (AVLNode<T>) node.Right;
+            } else {
+                return node.data;
+            }
+        }
+    }
+
+    /**
+     * Returns number of elements strictly less than data. O(logN)
+     * data may be absent in tree, then it is the position where it would be inserted
+     */
+    public int rank(T data) {
+        int rank = 0;
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp <= 0) {
+                node = (AVLNode<T>) node.Left;
+            } else {
+                rank += getSize((AVLNode<T>) node.Left) + node.getCount();
+                node = (AVLNode<T>) node.Right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns q-quantile by nearest-rank method: the smallest element,
+     * which is greater or equal than q * size elements. O(logN)
+     * @param q quantile in [0, 1]
+     * @throws NoSuchElementException if tree is empty
+     */
+    public T quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        int n = size();
+        if (n == 0) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        int k = (int) Math.ceil(q * n) - 1;
+        return select(Math.max(0, Math.min(n - 1, k)));
+    }
+
+    /**
+     * Returns p-th percentile by nearest-rank method. O(logN)
+     * @param p percentile in [0, 100]
+     */
+    public T percentile(double p) {
+        return quantile(p / 100.0);
+    }
+
+    /**
+     * Returns median (lower one for even size). O(logN)
+     */
+    public T median() {
+        if (root == null) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        return select((size() - 1) / 2);
+    }
+
     /**
      * Balance leafs and subtrees in tree. O(1)
      */
     private AVLNode<T> balance(AVLNode<T> node) {
-        updateHeight(node);
+        update(node);
         int balanceFactor = getBalanceFactor(node);
 
         if (balanceFactor > 1) { // BF > 1 -> Поворот влево
@@ -131,10 +983,46 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
     }
 
     /**
-     * Update height in node, using left 'n right heights
+     * Creates node for new element. Subclasses, which keep extra data in nodes, override it
+     */
+    protected AVLNode<T> createNode(T data) {
+        return new AVLNode<>(data);
+    }
+
+    /**
+     * Creates empty tree of the same kind, used by {@link #split(Object)} for the second part
+     */
+    protected AVLTree<T> createEmpty() {
+        return new AVLTree<>(comparator, multiset);
+    }
+
+    /**
+     * Checks if nodes of other tree can be moved into this one (join, union, intersection, difference).
+     * Trees of one class and mode are of one kind. Subclasses with extra node data extend the check
+     */
+    protected boolean isSameKind(AVLTree<T> other) {
+        return getClass() == other.getClass() && multiset == other.multiset;
+    }
+
+    /**
+     * Checks if nodes of other tree of the same kind can be linked into this one as they are.
+     * Needs the same comparator instance (comparators can not be compared by behaviour),
+     * otherwise join and set operations fall back to element-wise merge
+     */
+    protected boolean canShareNodes(AVLTree<T> other) {
+        return Objects.equals(comparator, other.comparator);
+    }
+
+    /**
+     * Update height and subtree size in node, using left 'n right children.
+     * Called for every node, whose children changed (balance, rotations, join, build),
+     * so subclasses override it to keep own subtree summaries, calling super.update first
      */
-    private void updateHeight(AVLNode<T> node) {
-        node.setHeight(1 + Math.max(getHeight((AVLNode<T>) node.Left), getHeight((AVLNode<T>) node.Right)));
+    protected void update(AVLNode<T> node) {
+        AVLNode<T> left = (AVLNode<T>) node.Left;
+        AVLNode<T> right = (AVLNode<T>) node.Right;
+        node.setHeight(1 + Math.max(getHeight(left), getHeight(right)));
+        node.setSize(node.getCount() + getSize(left) + getSize(right));
     }
 
     /**
@@ -144,6 +1032,13 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         return node == null ? -1 : node.getHeight();
     }
 
+    /**
+     * Return subtree size if node is not null, else return 0
+     */
+    private int getSize(AVLNode<T> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
     /**
      * return zero (if node is null) or node balance factor
      */
@@ -159,8 +1054,8 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         AVLNode<T> x = (AVLNode<T>) y.Left;
         y.Left = x.Right;
         x.Right = y;
-        updateHeight(y);
-        updateHeight(x);
+        update(y);
+        update(x);
         return x;
     }
 
@@ -172,28 +1067,94 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
         AVLNode<T> y = (AVLNode<T>) x.Right;
         x.Right = y.Left;
         y.Left = x;
-        updateHeight(x);
-        updateHeight(y);
+        update(x);
+        update(y);
         return y;
     }
 
     /**
-     * AVL Iterator
+     * AVL Iterator, ascending order
      */
     @Override
     public Iterator<T> iterator() {
         return new AVLIterator<>(root);
     }
 
+    /**
+     * Spliterator, which splits at subtree boundaries, so parallel streams get balanced halves.
+     * SORTED, ORDERED, SIZED and SUBSIZED (subtree sizes are exact), DISTINCT in set mode.
+     * Tree must not be modified while the spliterator is used.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new AVLSpliterator<>(null, root, !multiset, comparator);
+    }
 
     /**
-     * AVL tree iterator (NLR traversal)
+     * Sequential stream of elements in ascending order
      */
-    private static class AVLIterator<T extends Comparable<T>> implements Iterator<T> {
-        private final Stack<Joint<T>> stack = new Stack<>(); // stack using for remember, what joints already visited, and be able to move back
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Parallel stream of elements, work is split by subtrees
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Array-backed stack of nodes for traversals.
+     * Path in AVL tree has at most height + 1 nodes, so the initial capacity is enough for an unmodified tree.
+     */
+    private static final class NodeStack<T> {
+        private Joint<T>[] items;
+        private int top;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        NodeStack(AVLNode<T> root) {
+            items = (Joint<T>[]) new Joint[root == null ? 1 : root.getHeight() + 1];
+        }
+
+        void push(Joint<T> node) {
+            if (top == items.length) {
+                items = Arrays.copyOf(items, top * 2);
+            }
+            items[top++] = node;
+        }
+
+        Joint<T> pop() {
+            Joint<T> node = items[--top];
+            items[top] = null;
+            return node;
+        }
+
+        Joint<T> peek() {
+            return top == 0 ? null : items[top - 1];
+        }
+
+        boolean isEmpty() {
+            return top == 0;
+        }
+
+        void clear() {
+            Arrays.fill(items, 0, top, null);
+            top = 0;
+        }
+    }
+
+    /**
+     * AVL tree iterator (LNR traversal)
+     */
+    private static class AVLIterator<T> implements Iterator<T> {
+        private final NodeStack<T> stack; // stack using for remember, what joints already visited, and be able to move back
         // 'cause we haven't pointer on parent in joint
+        private Joint<T> current; // Node, whose copies are returned now (multiset mode)
+        private int remaining; // Copies of current left to return
 
-        public AVLIterator(Joint<T> root) {
+        public AVLIterator(AVLNode<T> root) {
+            stack = new NodeStack<>(root);
             pushLeft(root);
         }
 
@@ -206,22 +1167,211 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T> {
 
         @Override
         public boolean hasNext() {
-            return !stack.isEmpty();
+            return remaining > 0 || !stack.isEmpty();
         }
 
         /**
          * Возвращает данные узла, следующего в стеке, или исключение, если больше элементов нет
-         * Returns node data, next in the stack, or error message and null, if no more elements
+         * Returns node data, next in the stack
+         * @throws NoSuchElementException if no more elements
          */
         @Override
         public T next() {
             if (!hasNext()) {
-                System.err.println("Attempt to access element from an empty iterator");
+                throw new NoSuchElementException();
+            }
+            if (remaining == 0) {
+                current = stack.pop();
+                pushLeft(current.Right);
+                remaining = countOf(current);
+            }
+            remaining--;
+            return current.data;
+        }
+    }
+
+    /**
+     * Spliterator over the sequence [single] ++ inorder(subtree), single is an ancestor of subtree
+     * (its right subtree is subtree), so it precedes all elements of subtree.
+     * Split: prefix [single] ++ inorder(subtree.Left) is given away,
+     * this keeps [subtree] ++ inorder(subtree.Right). Both parts know their exact sizes.
+     */
+    private static final class AVLSpliterator<T> implements Spliterator<T> {
+        private final boolean distinct;
+        private final Comparator<? super T> comparator;
+        private Joint<T> single;
+        private AVLNode<T> subtree;
+        private NodeStack<T> stack; // Created on first tryAdvance, after that the spliterator does not split
+        private Joint<T> current; // Node, whose copies are emitted now (multiset mode)
+        private int remaining; // Copies of current left to emit
+
+        AVLSpliterator(Joint<T> single, AVLNode<T> subtree, boolean distinct, Comparator<? super T> comparator) {
+            this.single = single;
+            this.subtree = subtree;
+            this.distinct = distinct;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (stack != null || subtree == null || (single == null && subtree.Left == null)) {
                 return null;
             }
-                Joint<T> node = stack.pop();
-                pushLeft(node.Right);
-                return node.data;
+            AVLSpliterator<T> prefix = new AVLSpliterator<>(single, (AVLNode<T>) subtree.Left, distinct, comparator);
+            single = subtree;
+            subtree = (AVLNode<T>) subtree.Right;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining == 0) {
+                if (stack == null) {
+                    stack = new NodeStack<>(subtree);
+                    pushLeft(subtree);
+                    subtree = null;
+                    if (single != null) { // single precedes the whole subtree
+                        current = single;
+                        remaining = countOf(single);
+                        single = null;
+                    }
+                }
+                if (remaining == 0) {
+                    if (stack.isEmpty()) {
+                        return false;
+                    }
+                    current = stack.pop();
+                    pushLeft(current.Right);
+                    remaining = countOf(current);
+                }
+            }
+            remaining--;
+            action.accept(current.data);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (tryAdvance(action)) {
+                // Every call emits one element
+            }
+        }
+
+        private void pushLeft(Joint<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.Left;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            if (stack != null) {
+                long left = remaining;
+                for (int i = 0; i < stack.top; i++) { // Stacked node and its right subtree are left
+                    Joint<T> node = stack.items[i];
+                    left += countOf(node) + (node.Right == null ? 0 : ((AVLNode<T>) node.Right).getSize());
+                }
+                return left;
+            }
+            return (single == null ? 0 : countOf(single)) + (subtree == null ? 0 : subtree.getSize());
+        }
+
+        @Override
+        public int characteristics() {
+            return SORTED | ORDERED | SIZED | SUBSIZED | NONNULL | (distinct ? DISTINCT : 0);
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator; // null for natural order
+        }
+    }
+
+    /**
+     * Multiplicity of node, nodes of traversals are always AVLNode
+     */
+    private static <T> int countOf(Joint<T> node) {
+        return ((AVLNode<T>) node).getCount();
+    }
+
+    /**
+     * Iterator over [lo, hi) in ascending or descending order (null bound means unbounded).
+     * Start: one descent from the root, which pushes only nodes inside the bound,
+     * then every element costs O(1) amortized, so k elements cost O(logN + k).
+     */
+    private final class RangeIterator implements Iterator<T> {
+        private final NodeStack<T> stack;
+        private final T lo; // inclusive
+        private final T hi; // exclusive
+        private final boolean descending;
+        private Joint<T> current; // Node, whose copies are returned now (multiset mode)
+        private int remaining; // Copies of current left to return
+
+        RangeIterator(AVLNode<T> root, T lo, T hi, boolean descending) {
+            this.stack = new NodeStack<>(root);
+            this.lo = lo;
+            this.hi = hi;
+            this.descending = descending;
+            Joint<T> node = root;
+            while (node != null) {
+                if (!descending) {
+                    if (lo != null && compare(node.data, lo) < 0) {
+                        node = node.Right; // Whole left subtree is below lo
+                    } else {
+                        stack.push(node);
+                        node = node.Left;
+                    }
+                } else {
+                    if (hi != null && compare(node.data, hi) >= 0) {
+                        node = node.Left; // Whole right subtree is above hi
+                    } else {
+                        stack.push(node);
+                        node = node.Right;
+                    }
+                }
+            }
+            dropIfOutOfRange();
+        }
+
+        // Pushes the spine towards the next elements in iteration order
+        private void pushSpine(Joint<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = descending ? node.Right : node.Left;
+            }
+        }
+
+        // Elements come in order, so the first one out of the far bound ends the iteration
+        private void dropIfOutOfRange() {
+            Joint<T> top = stack.peek();
+            if (top == null) {
+                return;
+            }
+            if (!descending ? hi != null && compare(top.data, hi) >= 0
+                            : lo != null && compare(top.data, lo) < 0) {
+                stack.clear();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 || !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (remaining == 0) {
+                current = stack.pop();
+                pushSpine(descending ? current.Left : current.Right);
+                dropIfOutOfRange();
+                remaining = countOf(current);
+            }
+            remaining--;
+            return current.data;
         }
     }
 }
@@ -1,6 +1,12 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.Test;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 public class AVLTreeIteratorTest {
 
@@ -54,9 +60,58 @@ public class AVLTreeIteratorTest {
         assertTrue(iterator.hasNext());
         assertEquals(15, iterator.next());
         assertFalse(iterator.hasNext());
-        iterator.next();
-        iterator.next();
-        iterator.next();
-        iterator.next();
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void testSpliteratorSplitsBySubtrees() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i = 0; i < 1000; i++) {
+            avlTree.insert(i);
+        }
+        Spliterator<Integer> right = avlTree.spliterator();
+        assertTrue(right.hasCharacteristics(Spliterator.SORTED | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertNull(right.getComparator());
+        assertEquals(1000, right.estimateSize());
+
+        Spliterator<Integer> left = right.trySplit();
+        assertNotNull(left);
+        assertEquals(1000, left.estimateSize() + right.estimateSize());
+        assertTrue(left.estimateSize() > 250 && right.estimateSize() > 250); // AVL halves are balanced
+
+        // Префикс идёт перед суффиксом, вместе - все элементы по порядку
+        List<Integer> collected = new ArrayList<>();
+        left.forEachRemaining(collected::add);
+        long rightSize = right.estimateSize();
+        assertTrue(right.tryAdvance(collected::add));
+        assertTrue(right.tryAdvance(collected::add));
+        assertEquals(rightSize - 2, right.estimateSize());
+        assertNull(right.trySplit()); // После начала обхода не делится
+        right.forEachRemaining(collected::add);
+        assertEquals(1000, collected.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, collected.get(i));
+        }
+        assertEquals(0, right.estimateSize());
+    }
+
+    @Test
+    public void testParallelStream() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        Random random = new Random(37);
+        for (int i = 0; i < 20000; i++) {
+            avlTree.insert(random.nextInt(100000));
+        }
+        long sequential = avlTree.stream().mapToLong(Integer::longValue).sum();
+        long parallel = avlTree.parallelStream().mapToLong(Integer::longValue).sum();
+        assertEquals(sequential, parallel);
+
+        List<Integer> ordered = avlTree.parallelStream().collect(Collectors.toList());
+        assertEquals(avlTree.size(), ordered.size());
+        for (int i = 1; i < ordered.size(); i++) {
+            assertTrue(ordered.get(i - 1) < ordered.get(i));
+        }
+        assertEquals(0, new AVLTree<Integer>().parallelStream().count());
     }
 }
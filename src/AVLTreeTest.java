@@ -1,4 +1,13 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,4 +56,447 @@ public class AVLTreeTest {
 
     }
 
+    @org.junit.Test
+    public void testOrderStatisticsMatchSortedList() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                avlTree.delete(value);
+                expected.remove(value);
+            } else {
+                avlTree.insert(value);
+                expected.add(value);
+            }
+            assertEquals(expected.size(), avlTree.size());
+        }
+
+        List<Integer> sorted = new ArrayList<>(expected);
+        for (int k = 0; k < sorted.size(); k++) {
+            assertEquals(sorted.get(k), avlTree.select(k));
+            assertEquals(k, avlTree.rank(sorted.get(k)));
+        }
+        assertEquals(0, avlTree.rank(-1));
+        assertEquals(sorted.size(), avlTree.rank(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> avlTree.select(sorted.size()));
+    }
+
+    @org.junit.Test
+    public void testPercentiles() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i = 1; i <= 10; i++) {
+            avlTree.insert(i * 10);
+        }
+
+        assertEquals(10, avlTree.percentile(0));
+        assertEquals(50, avlTree.percentile(50));
+        assertEquals(90, avlTree.percentile(90));
+        assertEquals(100, avlTree.percentile(100));
+        assertEquals(50, avlTree.median());
+        assertThrows(IllegalArgumentException.class, () -> avlTree.quantile(1.5));
+        assertThrows(NoSuchElementException.class, () -> new AVLTree<Integer>().median());
+    }
+
+    @org.junit.Test
+    public void testNavigationMatchesTreeSet() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        assertNull(avlTree.first());
+        assertNull(avlTree.last());
+        assertNull(avlTree.floor(5));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            int value = random.nextInt(1000) * 2; // Only even values, odd probes are absent
+            avlTree.insert(value);
+            expected.add(value);
+        }
+
+        assertEquals(expected.first(), avlTree.first());
+        assertEquals(expected.last(), avlTree.last());
+        for (int probe = -3; probe < 2003; probe++) {
+            assertEquals(expected.contains(probe), avlTree.contains(probe));
+            assertEquals(expected.floor(probe), avlTree.floor(probe));
+            assertEquals(expected.ceiling(probe), avlTree.ceiling(probe));
+            assertEquals(expected.lower(probe), avlTree.lower(probe));
+            assertEquals(expected.higher(probe), avlTree.higher(probe));
+        }
+    }
+
+    @org.junit.Test
+    public void testRangeIterators() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 200; i += 3) {
+            avlTree.insert(i);
+            expected.add(i);
+        }
+
+        int[][] bounds = {{10, 50}, {9, 51}, {0, 199}, {-5, 3}, {40, 40}, {50, 10}, {198, 500}};
+        for (int[] b : bounds) {
+            List<Integer> want = b[0] <= b[1] ? new ArrayList<>(expected.subSet(b[0], b[1])) : List.of();
+            assertIterableEquals(want, avlTree.range(b[0], b[1]));
+            List<Integer> wantDescending = new ArrayList<>(want);
+            Collections.reverse(wantDescending);
+            assertIterableEquals(wantDescending, avlTree.descendingRange(b[0], b[1]));
+        }
+
+        assertIterableEquals(new ArrayList<>(expected.headSet(30)), avlTree.headSet(30));
+        assertIterableEquals(new ArrayList<>(expected.tailSet(180)), avlTree.tailSet(180));
+        assertIterableEquals(new ArrayList<>(expected.headSet(30, false).descendingSet()), avlTree.descendingHeadSet(30));
+        assertIterableEquals(new ArrayList<>(expected.tailSet(180, true).descendingSet()), avlTree.descendingTailSet(180));
+
+        Iterator<Integer> empty = avlTree.range(1, 2).iterator();
+        assertFalse(empty.hasNext());
+        assertThrows(NoSuchElementException.class, empty::next);
+    }
+
+    /**
+     * Checks AVL invariant, heights and sizes of every node, returns height
+     */
+    private static int checkInvariants(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int left = checkInvariants((AVLNode<Integer>) node.Left);
+        int right = checkInvariants((AVLNode<Integer>) node.Right);
+        assertTrue(Math.abs(left - right) <= 1, "Unbalanced node " + node.data);
+        assertEquals(1 + Math.max(left, right), node.getHeight());
+        int leftSize = node.Left == null ? 0 : ((AVLNode<Integer>) node.Left).getSize();
+        int rightSize = node.Right == null ? 0 : ((AVLNode<Integer>) node.Right).getSize();
+        assertEquals(node.getCount() + leftSize + rightSize, node.getSize());
+        return 1 + Math.max(left, right);
+    }
+
+    @org.junit.Test
+    public void testFromSorted() {
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sorted.add(i);
+            if (i % 100 == 0) {
+                sorted.add(i); // Duplicates are dropped
+            }
+        }
+        AVLTree<Integer> avlTree = AVLTree.fromSorted(sorted);
+
+        assertEquals(1000, avlTree.size());
+        assertEquals(9, checkInvariants(avlTree.getRoot())); // Perfectly balanced: floor(log2(1000))
+        assertEquals(500, avlTree.select(500));
+        assertEquals(0, AVLTree.fromSorted(List.<Integer>of()).size());
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(List.of(1, 3, 2)));
+    }
+
+    @org.junit.Test
+    public void testBulkInsertMergesWithExistingTree() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 100; i += 2) {
+            avlTree.insert(i);
+            expected.add(i);
+        }
+
+        Random random = new Random(3);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            batch.add(random.nextInt(50_000));
+        }
+        avlTree.bulkInsert(batch);
+        expected.addAll(batch);
+
+        assertIterableEquals(new ArrayList<>(expected), avlTree);
+        assertEquals(expected.size(), avlTree.size());
+        checkInvariants(avlTree.getRoot());
+
+        // Small batch goes through regular inserts
+        avlTree.bulkInsert(List.of(-1, -2, 1));
+        expected.addAll(List.of(-1, -2, 1));
+        assertIterableEquals(new ArrayList<>(expected), avlTree);
+        checkInvariants(avlTree.getRoot());
+    }
+
+    private static AVLTree<Integer> treeOf(TreeSet<Integer> values) {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int value : values) {
+            avlTree.insert(value);
+        }
+        return avlTree;
+    }
+
+    @org.junit.Test
+    public void testJoinAndSplit() {
+        TreeSet<Integer> low = new TreeSet<>();
+        TreeSet<Integer> high = new TreeSet<>();
+        for (int i = 0; i < 10; i++) {
+            low.add(i);
+        }
+        for (int i = 100; i < 1100; i++) {
+            high.add(i);
+        }
+        AVLTree<Integer> joined = AVLTree.join(treeOf(low), treeOf(high));
+        assertEquals(1010, joined.size());
+        checkInvariants(joined.getRoot());
+
+        AVLTree<Integer> tail = joined.split(500);
+        assertEquals(0, joined.first());
+        assertEquals(499, joined.last());
+        assertEquals(500, tail.first());
+        assertEquals(1099, tail.last());
+        assertEquals(410, joined.size());
+        assertEquals(600, tail.size());
+        checkInvariants(joined.getRoot());
+        checkInvariants(tail.getRoot());
+
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(treeOf(high), treeOf(low)));
+    }
+
+    @org.junit.Test
+    public void testSetOperations() {
+        Random random = new Random(11);
+        int[][] sizes = {{0, 10}, {10, 0}, {50, 60}, {20_000, 300}, {15_000, 15_000}};
+        for (int[] size : sizes) {
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            while (a.size() < size[0]) {
+                a.add(random.nextInt(60_000));
+            }
+            while (b.size() < size[1]) {
+                b.add(random.nextInt(60_000));
+            }
+
+            TreeSet<Integer> union = new TreeSet<>(a);
+            union.addAll(b);
+            TreeSet<Integer> intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            TreeSet<Integer> difference = new TreeSet<>(a);
+            difference.removeAll(b);
+
+            AVLTree<Integer> left = treeOf(a);
+            AVLTree<Integer> right = treeOf(b);
+            AVLTree<Integer> result = AVLTree.union(left, right);
+            assertEquals(0, left.size());
+            assertEquals(0, right.size());
+            assertIterableEquals(new ArrayList<>(union), result);
+            assertEquals(union.size(), result.size());
+            checkInvariants(result.getRoot());
+
+            result = AVLTree.intersection(treeOf(a), treeOf(b));
+            assertIterableEquals(new ArrayList<>(intersection), result);
+            checkInvariants(result.getRoot());
+
+            result = AVLTree.difference(treeOf(a), treeOf(b));
+            assertIterableEquals(new ArrayList<>(difference), result);
+            checkInvariants(result.getRoot());
+        }
+    }
+
+    @org.junit.Test
+    public void testMultisetCountsDuplicates() {
+        AVLTree<Integer> avlTree = new AVLTree<>(true);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(50);
+            if (random.nextInt(4) == 0) {
+                avlTree.delete(value);
+                expected.remove((Integer) value);
+            } else {
+                avlTree.insert(value);
+                expected.add(value);
+            }
+        }
+        Collections.sort(expected);
+        checkInvariants(avlTree.getRoot());
+        assertTrue(avlTree.getRoot().getHeight() <= 7); // Не больше 50 узлов, по одному на значение
+        assertEquals(expected.size(), avlTree.size());
+        assertIterableEquals(expected, avlTree);
+        assertEquals(expected, avlTree.stream().collect(Collectors.toList()));
+        for (int k = 0; k < expected.size(); k++) {
+            assertEquals(expected.get(k), avlTree.select(k));
+        }
+        for (int value = -1; value <= 50; value++) {
+            int less = 0;
+            int count = 0;
+            for (int e : expected) {
+                less += e < value ? 1 : 0;
+                count += e == value ? 1 : 0;
+            }
+            assertEquals(less, avlTree.rank(value));
+            assertEquals(count, avlTree.count(value));
+        }
+
+        List<Integer> range = new ArrayList<>();
+        avlTree.range(10, 12).forEach(range::add);
+        assertEquals(avlTree.count(10) + avlTree.count(11), range.size());
+
+        int before = avlTree.size();
+        int copies = avlTree.count(25);
+        avlTree.deleteAll(25);
+        assertEquals(0, avlTree.count(25));
+        assertEquals(before - copies, avlTree.size());
+        checkInvariants(avlTree.getRoot());
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.union(new AVLTree<Integer>(true), new AVLTree<>()));
+    }
+
+    @org.junit.Test
+    public void testDescendingIteratorAndTopK() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i = 0; i < 1000; i++) {
+            avlTree.insert(i * 2);
+        }
+        Iterator<Integer> descending = avlTree.descendingIterator();
+        for (int i = 999; i >= 0; i--) {
+            assertEquals(i * 2, descending.next());
+        }
+        assertFalse(descending.hasNext());
+        assertThrows(NoSuchElementException.class, descending::next);
+
+        Integer[] buffer = new Integer[5];
+        assertEquals(5, avlTree.topK(5, buffer));
+        assertArrayEquals(new Integer[]{1998, 1996, 1994, 1992, 1990}, buffer);
+        assertEquals(3, avlTree.bottomK(3, buffer));
+        assertEquals(List.of(0, 2, 4), Arrays.asList(buffer).subList(0, 3));
+        assertEquals(5, avlTree.topK(100, buffer)); // Не больше длины буфера
+        assertEquals(0, avlTree.topK(0, buffer));
+
+        AVLTree<Integer> multiset = new AVLTree<>(true);
+        for (int value : new int[]{5, 7, 7, 7, 1, 5}) {
+            multiset.insert(value);
+        }
+        Integer[] large = new Integer[10];
+        assertEquals(6, multiset.topK(10, large));
+        assertEquals(List.of(7, 7, 7, 5, 5, 1), Arrays.asList(large).subList(0, 6));
+        assertEquals(2, multiset.bottomK(2, large));
+        assertEquals(List.of(1, 5), Arrays.asList(large).subList(0, 2));
+        assertEquals(0, new AVLTree<Integer>().topK(3, large));
+    }
+
+    @org.junit.Test
+    public void testBulkInsertNearlySortedBatches() {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(44);
+        int time = 1000;
+        for (int round = 0; round < 300; round++) {
+            List<Integer> batch = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                time += 1 + random.nextInt(3);
+                batch.add(random.nextInt(20) == 0 ? time - random.nextInt(2000) : time); // Редкие опоздавшие
+            }
+            if (round % 50 == 0) {
+                batch.add(random.nextInt(100)); // Ниже минимума дерева
+            }
+            Collections.swap(batch, 3, 7);
+            avlTree.bulkInsert(batch);
+            expected.addAll(batch);
+            checkInvariants(avlTree.getRoot());
+        }
+        assertEquals(expected.size(), avlTree.size());
+        assertIterableEquals(new ArrayList<>(expected), avlTree);
+    }
+
+    @org.junit.Test
+    public void testComparatorAndKeyExtractor() {
+        AVLTree<Bulb> bulbs = AVLTree.byIntKey(bulb -> bulb.P);
+        for (int power : new int[]{60, 40, 100, 25, 75}) {
+            bulbs.insert(new Bulb(power));
+        }
+        List<Integer> powers = new ArrayList<>();
+        bulbs.forEach(bulb -> powers.add(bulb.P));
+        assertEquals(List.of(25, 40, 60, 75, 100), powers);
+        assertTrue(bulbs.contains(new Bulb(75)));
+        assertEquals(2, bulbs.rank(new Bulb(50)));
+        assertEquals(100, bulbs.last().P);
+
+        AVLTree<String> byLength = new AVLTree<>(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        byLength.bulkInsert(List.of("ccc", "a", "bb", "aa", "dddd"));
+        assertIterableEquals(List.of("a", "aa", "bb", "ccc", "dddd"), byLength);
+        assertEquals("bb", byLength.floor("zz"));
+        AVLTree<String> tail = byLength.split("ab");
+        assertIterableEquals(List.of("bb", "ccc", "dddd"), tail);
+        assertIterableEquals(List.of("ccc", "dddd"), tail.range("bbb", "eeeee"));
+        assertEquals(byLength.comparator(), tail.comparator());
+
+        AVLTree<Integer> descending = AVLTree.fromSorted(List.of(9, 7, 7, 3), Comparator.reverseOrder());
+        assertIterableEquals(List.of(9, 7, 3), descending);
+        assertEquals(7, descending.freeze().ceiling(8));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(List.of(1, 2), Comparator.reverseOrder()));
+    }
+
+    @org.junit.Test
+    public void testJoinAndUnionRejectDifferentKinds() {
+        AggregateAVLTree<Integer, Long> aggregate = new AggregateAVLTree<>(
+                AggregateAVLTree.Monoid.of(0L, Integer::longValue, Long::sum));
+        AVLTree<Integer> plain = new AVLTree<>();
+        for (int i = 0; i < 10; i++) {
+            aggregate.insert(i);
+            plain.insert(i + 5);
+        }
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.union(aggregate, plain));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.union(plain, aggregate));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.difference(aggregate, plain));
+        assertEquals(10, aggregate.size()); // Отклонённые деревья не опустошаются
+        assertEquals(10, plain.size());
+        assertEquals(45L, aggregate.aggregate());
+
+        AVLTree<Integer> high = new AVLTree<>();
+        high.insert(100);
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(aggregate, high));
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(new AVLTree<>(true), high));
+        assertEquals(10, aggregate.size());
+        assertEquals(1, high.size());
+        assertEquals(11, AVLTree.join(plain, high).size());
+    }
+
+    @org.junit.Test
+    public void testJoinAndSetOperationsWithDifferentComparators() {
+        AVLTree<Integer> reversed = new AVLTree<>(Comparator.reverseOrder());
+        AVLTree<Integer> natural = new AVLTree<>();
+        for (int i = 0; i < 10; i++) {
+            reversed.insert(i);
+            natural.insert(i + 5);
+        }
+        AVLTree<Integer> union = AVLTree.union(reversed, natural); // Поэлементное слияние в порядке первого дерева
+        assertEquals(15, union.size());
+        assertEquals(Integer.valueOf(14), union.first());
+        assertEquals(Integer.valueOf(0), union.last());
+        checkInvariants(union.getRoot());
+        assertEquals(0, reversed.size());
+        assertEquals(0, natural.size());
+
+        AVLTree<Integer> evens = new AVLTree<>();
+        for (int i = 0; i < 20; i += 2) {
+            evens.insert(i);
+        }
+        AVLTree<Integer> common = AVLTree.intersection(evens, AVLTree.union(union, new AVLTree<>(Comparator.reverseOrder())));
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8, 10, 12, 14), toList(common));
+
+        AVLTree<Integer> low = new AVLTree<>(Comparator.reverseOrder());
+        low.insert(-1); // В порядке common (левого дерева) -1 меньше всех его элементов
+        assertThrows(IllegalArgumentException.class, () -> AVLTree.join(common, low));
+        assertEquals(8, common.size());
+        assertEquals(1, low.size());
+
+        // Деревья byIntKey с одним извлекателем ключа получают разные компараторы, но соединяются
+        AVLTree<Integer> left = AVLTree.byIntKey(Integer::intValue);
+        AVLTree<Integer> right = AVLTree.byIntKey(Integer::intValue);
+        for (int i = 0; i < 100; i++) {
+            left.insert(i);
+            right.insert(i + 100);
+        }
+        AVLTree<Integer> joined = AVLTree.join(left, right);
+        assertEquals(200, joined.size());
+        checkInvariants(joined.getRoot());
+        AVLTree<Integer> shared = new AVLTree<>(joined.comparator());
+        shared.insert(500);
+        assertEquals(201, AVLTree.join(joined, shared).size());
+    }
+
+    private static List<Integer> toList(AVLTree<Integer> tree) {
+        List<Integer> result = new ArrayList<>();
+        tree.forEach(result::add);
+        return result;
+    }
 }
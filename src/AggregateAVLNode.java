@@ -0,0 +1,26 @@
+/**
+ * Узел AVL дерева с агрегатом своего поддерева
+ * @param <T> тип данных узла
+ * @param <A> тип агрегата
+ */
+class AggregateAVLNode<T, A> extends AVLNode<T> {
+    private A aggregate;
+
+    /**
+     * Конструктор листа, агрегат листа - значение его данных
+     * @param data данные узла
+     * @param aggregate агрегат листа
+     */
+    AggregateAVLNode(T data, A aggregate) {
+        super(data);
+        this.aggregate = aggregate;
+    }
+
+    public A getAggregate() {
+        return aggregate;
+    }
+
+    public void setAggregate(A aggregate) {
+        this.aggregate = aggregate;
+    }
+}
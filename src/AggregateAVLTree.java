@@ -0,0 +1,177 @@
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * AVL дерево, каждый узел которого хранит агрегат (моноид) своего поддерева:
+ * сумму, минимум, максимум, количество и т.п.
+ * <p>
+ * Агрегат узла = combine(агрегат левого, lift(data), агрегат правого), он пересчитывается
+ * в {@link #update(AVLNode)} при вставке, удалении, поворотах, join и split.
+ * combine должен быть ассоциативным, identity - нейтральным элементом. Коммутативность не нужна:
+ * элементы объединяются в порядке возрастания.
+ * <p>
+ * Основные методы: {@link #aggregate(Object, Object)} - агрегат по диапазону [lo, hi), O(logN),
+ * {@link #aggregate()} - агрегат всего дерева, O(1).
+ *
+ * @param <T> Тип данных узла дерева, порядок как в {@link AVLTree}
+ * @param <A> Тип агрегата
+ */
+public class AggregateAVLTree<T, A> extends AVLTree<T> {
+    private final Monoid<T, A> monoid;
+
+    public AggregateAVLTree(Monoid<T, A> monoid) {
+        this(null, monoid);
+    }
+
+    /**
+     * @param comparator порядок элементов, null - естественный порядок
+     */
+    public AggregateAVLTree(Comparator<? super T> comparator, Monoid<T, A> monoid) {
+        super(comparator);
+        this.monoid = Objects.requireNonNull(monoid);
+    }
+
+    /**
+     * Моноид над элементами дерева
+     * @param <T> тип элементов
+     * @param <A> тип агрегата
+     */
+    public interface Monoid<T, A> {
+        /**
+         * Нейтральный элемент: агрегат пустого диапазона
+         */
+        A identity();
+
+        /**
+         * Агрегат одного элемента
+         */
+        A lift(T value);
+
+        /**
+         * Ассоциативное объединение агрегатов соседних диапазонов (left идёт перед right)
+         */
+        A combine(A left, A right);
+
+        static <T, A> Monoid<T, A> of(A identity, Function<? super T, ? extends A> lift, BinaryOperator<A> combine) {
+            return new Monoid<>() {
+                @Override
+                public A identity() {
+                    return identity;
+                }
+
+                @Override
+                public A lift(T value) {
+                    return lift.apply(value);
+                }
+
+                @Override
+                public A combine(A left, A right) {
+                    return combine.apply(left, right);
+                }
+            };
+        }
+    }
+
+    /**
+     * Aggregate of the whole tree. O(1)
+     */
+    public A aggregate() {
+        return aggregateOf(getRoot());
+    }
+
+    /**
+     * Aggregate of elements in [lo, hi), in ascending order. O(logN)
+     * Descends to the first node inside the range, then walks its left and right spines:
+     * every node on the spines adds its own value and one whole child subtree, so at most 2 * height nodes are touched.
+     * @return identity, if range is empty
+     */
+    public A aggregate(T lo, T hi) {
+        AVLNode<T> node = getRoot();
+        while (node != null) { // Ищем первый узел внутри диапазона - вершину, где пути к lo и hi расходятся
+            if (compare(node.data, lo) < 0) {
+                node = (AVLNode<T>) node.Right;
+            } else if (compare(node.data, hi) >= 0) {
+                node = (AVLNode<T>) node.Left;
+            } else {
+                break;
+            }
+        }
+        if (node == null) {
+            return monoid.identity();
+        }
+
+        A leftPart = monoid.identity(); // Elements >= lo in left subtree
+        AVLNode<T> current = (AVLNode<T>) node.Left;
+        while (current != null) {
+            if (compare(current.data, lo) >= 0) { // current and its right subtree are in range, they precede collected part
+                A piece = monoid.combine(monoid.lift(current.data), aggregateOf((AVLNode<T>) current.Right));
+                leftPart = monoid.combine(piece, leftPart);
+                current = (AVLNode<T>) current.Left;
+            } else {
+                current = (AVLNode<T>) current.Right;
+            }
+        }
+
+        A rightPart = monoid.identity(); // Elements < hi in right subtree
+        current = (AVLNode<T>) node.Right;
+        while (current != null) {
+            if (compare(current.data, hi) < 0) { // Left subtree and current are in range, they follow collected part
+                A piece = monoid.combine(aggregateOf((AVLNode<T>) current.Left), monoid.lift(current.data));
+                rightPart = monoid.combine(rightPart, piece);
+                current = (AVLNode<T>) current.Right;
+            } else {
+                current = (AVLNode<T>) current.Left;
+            }
+        }
+
+        return monoid.combine(monoid.combine(leftPart, monoid.lift(node.data)), rightPart);
+    }
+
+    /**
+     * Splits tree by key, see {@link AVLTree#split(Object)}. Both parts keep the monoid. O(logN)
+     */
+    @Override
+    @SuppressWarnings("unchecked") // createEmpty returns AggregateAVLTree with the same monoid
+    public AggregateAVLTree<T, A> split(T key) {
+        return (AggregateAVLTree<T, A>) super.split(key);
+    }
+
+    @Override
+    protected AVLNode<T> createNode(T data) {
+        return new AggregateAVLNode<>(data, monoid.lift(data));
+    }
+
+    @Override
+    protected AVLTree<T> createEmpty() {
+        return new AggregateAVLTree<>(comparator(), monoid);
+    }
+
+    /**
+     * Nodes keep aggregates of their monoid, so they are shared only with a tree of the same monoid instance.
+     * Otherwise join and set operations insert elements, and aggregates are computed by this monoid
+     */
+    @Override
+    protected boolean canShareNodes(AVLTree<T> other) {
+        return super.canShareNodes(other) && ((AggregateAVLTree<?, ?>) other).monoid == monoid;
+    }
+
+    /**
+     * Updates height, size and aggregate of node from its children. O(1)
+     * Every node of this tree is created by {@link #createNode(Object)}, and nodes of other trees
+     * come only through join and set operations, which check {@link #canShareNodes(AVLTree)} first
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void update(AVLNode<T> node) {
+        super.update(node);
+        A aggregate = monoid.combine(aggregateOf((AVLNode<T>) node.Left), monoid.lift(node.data));
+        ((AggregateAVLNode<T, A>) node).setAggregate(monoid.combine(aggregate, aggregateOf((AVLNode<T>) node.Right)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private A aggregateOf(AVLNode<T> node) {
+        return node == null ? monoid.identity() : ((AggregateAVLNode<T, A>) node).getAggregate();
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+class AggregateAVLTreeTest {
+    private static final AggregateAVLTree.Monoid<Integer, Long> SUM =
+            AggregateAVLTree.Monoid.of(0L, Integer::longValue, Long::sum);
+
+    @Test
+    void testRangeSumMatchesScan() {
+        AggregateAVLTree<Integer, Long> tree = new AggregateAVLTree<>(SUM);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(38);
+        for (int i = 0; i < 4000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                tree.delete(value);
+                expected.remove(value);
+            } else {
+                tree.insert(value);
+                expected.add(value);
+            }
+        }
+        assertEquals(expected.stream().mapToLong(Integer::longValue).sum(), tree.aggregate());
+        for (int i = 0; i < 500; i++) {
+            int lo = random.nextInt(1100) - 50;
+            int hi = lo + random.nextInt(400);
+            long sum = 0;
+            for (int value : expected.subSet(lo, hi)) {
+                sum += value;
+            }
+            assertEquals(sum, tree.aggregate(lo, hi));
+        }
+        assertEquals(0L, tree.aggregate(500, 500));
+        assertEquals(0L, tree.aggregate(2000, 3000));
+    }
+
+    @Test
+    void testNonCommutativeMonoidKeepsOrder() {
+        AggregateAVLTree.Monoid<Integer, String> concat =
+                AggregateAVLTree.Monoid.of("", value -> value + ",", String::concat);
+        AggregateAVLTree<Integer, String> tree = new AggregateAVLTree<>(concat);
+        for (int value : List.of(50, 20, 80, 10, 30, 70, 90, 60, 40)) {
+            tree.insert(value);
+        }
+        assertEquals("10,20,30,40,50,60,70,80,90,", tree.aggregate());
+        assertEquals("30,40,50,60,", tree.aggregate(25, 70));
+        assertEquals("10,", tree.aggregate(0, 20));
+        tree.delete(50);
+        assertEquals("40,60,", tree.aggregate(35, 65));
+    }
+
+    @Test
+    void testMinAndCount() {
+        AggregateAVLTree<Integer, Integer> min = new AggregateAVLTree<>(
+                AggregateAVLTree.Monoid.<Integer, Integer>of(Integer.MAX_VALUE, value -> value, Math::min));
+        AggregateAVLTree<Integer, Integer> count = new AggregateAVLTree<>(
+                AggregateAVLTree.Monoid.<Integer, Integer>of(0, value -> 1, Integer::sum));
+        for (int i = 100; i > 0; i--) {
+            min.insert(i * 3);
+            count.insert(i * 3);
+        }
+        assertEquals(33, min.aggregate(31, 1000));
+        assertEquals(Integer.MAX_VALUE, min.aggregate(301, 1000));
+        assertEquals(count.rank(150) - count.rank(30), count.aggregate(30, 150));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked") // AVLTree.join and union return AVLTree<T> of the same kind
+    void testSplitJoinAndBulkInsertKeepAggregates() {
+        AggregateAVLTree<Integer, Long> tree = new AggregateAVLTree<>(SUM);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(i);
+        }
+        tree.bulkInsert(batch);
+        assertEquals(499500L, tree.aggregate());
+
+        AggregateAVLTree<Integer, Long> tail = tree.split(600);
+        assertEquals(179700L, tree.aggregate());
+        assertEquals(319800L, tail.aggregate());
+        assertEquals(600L + 601 + 602, tail.aggregate(0, 603));
+
+        AVLTree<Integer> joined = AVLTree.join(tree, tail);
+        assertTrue(joined instanceof AggregateAVLTree);
+        AggregateAVLTree<Integer, Long> aggregateJoined = (AggregateAVLTree<Integer, Long>) joined;
+        assertEquals(499500L, aggregateJoined.aggregate());
+        assertEquals(45L, aggregateJoined.aggregate(0, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked") // AVLTree.join and union return AVLTree<T> of the same kind
+    void testJoinWithOtherMonoid() {
+        AggregateAVLTree<Integer, Long> sum = new AggregateAVLTree<>(SUM);
+        AggregateAVLTree<Integer, Long> max = new AggregateAVLTree<>(
+                AggregateAVLTree.Monoid.of(Long.MIN_VALUE, Integer::longValue, Math::max));
+        for (int i = 0; i < 10; i++) {
+            sum.insert(i);
+            max.insert(i + 10);
+        }
+        // Узлы max хранят максимумы, поэтому элементы вставляются заново и агрегаты считаются моноидом sum
+        AggregateAVLTree<Integer, Long> joined = (AggregateAVLTree<Integer, Long>) AVLTree.join(sum, max);
+        assertEquals(190L, joined.aggregate());
+        assertEquals(10L + 11 + 12, joined.aggregate(10, 13));
+
+        AggregateAVLTree<Integer, Long> other = new AggregateAVLTree<>(
+                AggregateAVLTree.Monoid.of(Long.MIN_VALUE, Integer::longValue, Math::max));
+        other.insert(5);
+        other.insert(100);
+        AggregateAVLTree<Integer, Long> union = (AggregateAVLTree<Integer, Long>) AVLTree.union(joined, other);
+        assertEquals(290L, union.aggregate());
+        assertEquals(21, union.size());
+    }
+}
@@ -0,0 +1,490 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Упорядоченное множество на основе B+-дерева.
+ * <p>
+ * Ключи хранятся только в листьях, по fanout ключей в массиве, внутренние узлы хранят разделители и до fanout потомков.
+ * Поиск читает O(log_fanout N) узлов, соседние ключи лежат в одном массиве, поэтому промахов кэша
+ * намного меньше, чем в AVLTree, где каждый уровень - отдельный объект.
+ * Листья связаны ссылками на следующий лист, обход и диапазоны идут по листьям без подъёма к корню.
+ * <p>
+ * Основные методы (как в {@link AVLTree}):
+ * <ul>
+ *     <li>{@link #insert(Comparable)}, {@link #delete(Comparable)}, {@link #contains(Comparable)} - O(logN)</li>
+ *     <li>{@link #first()}, {@link #last()}, {@link #size()} - O(1)/O(logN)/O(1)</li>
+ *     <li>{@link #iterator()} - Обход по возрастанию по связанным листьям</li>
+ *     <li>{@link #range(Comparable, Comparable)}, {@link #headSet(Comparable)}, {@link #tailSet(Comparable)} -
+ *     Ленивые итераторы по диапазону: O(logN) на старт и O(k) на k элементов</li>
+ * </ul>
+ * Дубликаты не добавляются.
+ *
+ * @param <T> Тип ключей, должен быть Comparable.
+ */
+public class BPlusTree<T extends Comparable<T>> implements Iterable<T> {
+    public static final int DEFAULT_FANOUT = 64; // 64 references fit in few cache lines, tree of 10^7 keys has 4-5 levels
+    private static final int MIN_FANOUT = 4;
+
+    private final int fanout; // Max keys in leaf and max children in inner node
+    private final int minLeafKeys;
+    private final int minChildren;
+
+    private Node root;
+    private Leaf firstLeaf;
+    private int size;
+    private int height = 1; // Number of levels, single leaf is 1
+
+    private Object splitKey; // Separator of the last split, returned from insert together with the new node
+
+    public BPlusTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * @param fanout наибольшее число ключей в листе и потомков во внутреннем узле, не меньше 4
+     */
+    public BPlusTree(int fanout) {
+        if (fanout < MIN_FANOUT) {
+            throw new IllegalArgumentException("Fanout must be at least " + MIN_FANOUT + ": " + fanout);
+        }
+        this.fanout = fanout;
+        this.minLeafKeys = fanout / 2;
+        this.minChildren = (fanout + 1) / 2;
+        this.firstLeaf = new Leaf(fanout); // Not clear(): an overridable call would leak this before subclass init
+        this.root = firstLeaf;
+    }
+
+    /**
+     * Базовый узел: count ключей в листе или потомков во внутреннем узле
+     */
+    private abstract static class Node {
+        final Object[] keys;
+        int count;
+
+        Node(int keyCapacity) {
+            keys = new Object[keyCapacity];
+        }
+    }
+
+    /**
+     * Лист: ключи keys[0..count) и ссылка на следующий лист
+     */
+    private static final class Leaf extends Node {
+        Leaf next;
+
+        Leaf(int fanout) {
+            super(fanout + 1); // One extra slot for overflow before split
+        }
+    }
+
+    /**
+     * Внутренний узел: потомки children[0..count) и разделители keys[0..count - 1),
+     * keys[i] - наименьший допустимый ключ в children[i + 1]
+     */
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int fanout) {
+            super(fanout);
+            children = new Node[fanout + 1];
+        }
+    }
+
+    /**
+     * Вставляет ключ. O(logN)
+     * @param data значение для вставки
+     */
+    public void insert(T data) {
+        Node right = insert(root, data);
+        if (right != null) { // Root was split, tree grows by one level
+            Inner newRoot = new Inner(fanout);
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.keys[0] = splitKey;
+            newRoot.count = 2;
+            root = newRoot;
+            height++;
+        }
+    }
+
+    /**
+     * Inserts into subtree, returns new right sibling if node was split (its separator is in splitKey)
+     */
+    private Node insert(Node node, T data) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = lowerBound(leaf.keys, leaf.count, data);
+            if (index < leaf.count && data.compareTo(key(leaf.keys, index)) == 0) {
+                return null; // Дубликаты не добавляем
+            }
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.count - index);
+            leaf.keys[index] = data;
+            leaf.count++;
+            size++;
+            return leaf.count > fanout ? splitLeaf(leaf) : null;
+        }
+
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, data);
+        Node right = insert(inner.children[index], data);
+        if (right == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, index, inner.keys, index + 1, inner.count - 1 - index);
+        System.arraycopy(inner.children, index + 1, inner.children, index + 2, inner.count - 1 - index);
+        inner.keys[index] = splitKey;
+        inner.children[index + 1] = right;
+        inner.count++;
+        return inner.count > fanout ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf(fanout);
+        int leftCount = leaf.count / 2;
+        right.count = leaf.count - leftCount;
+        System.arraycopy(leaf.keys, leftCount, right.keys, 0, right.count);
+        Arrays.fill(leaf.keys, leftCount, leaf.count, null);
+        leaf.count = leftCount;
+        right.next = leaf.next;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    private Inner splitInner(Inner inner) {
+        Inner right = new Inner(fanout);
+        int leftCount = inner.count / 2;
+        right.count = inner.count - leftCount;
+        System.arraycopy(inner.children, leftCount, right.children, 0, right.count);
+        System.arraycopy(inner.keys, leftCount, right.keys, 0, right.count - 1);
+        splitKey = inner.keys[leftCount - 1]; // Moves up, no copy stays in either half
+        Arrays.fill(inner.children, leftCount, inner.count, null);
+        Arrays.fill(inner.keys, leftCount - 1, inner.count - 1, null);
+        inner.count = leftCount;
+        return right;
+    }
+
+    /**
+     * Удаляет ключ. O(logN)
+     * @param data значение для удаления
+     */
+    public void delete(T data) {
+        if (!delete(root, data)) {
+            return;
+        }
+        size--;
+        if (root instanceof Inner && root.count == 1) { // Root lost its last separator, tree shrinks by one level
+            root = ((Inner) root).children[0];
+            height--;
+        }
+    }
+
+    /**
+     * Deletes from subtree, returns true if key was found. Underflowed children are fixed by the parent
+     */
+    private boolean delete(Node node, T data) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = lowerBound(leaf.keys, leaf.count, data);
+            if (index == leaf.count || data.compareTo(key(leaf.keys, index)) != 0) {
+                return false;
+            }
+            System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+            leaf.keys[--leaf.count] = null;
+            return true;
+        }
+
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, data);
+        Node child = inner.children[index];
+        if (!delete(child, data)) {
+            return false;
+        }
+        if (child instanceof Leaf ? child.count < minLeafKeys : child.count < minChildren) {
+            fixUnderflow(inner, index);
+        }
+        return true;
+    }
+
+    /**
+     * Borrows one key from a sibling with spare keys or merges child with a sibling. O(fanout)
+     */
+    private void fixUnderflow(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index + 1 < parent.count ? parent.children[index + 1] : null;
+        if (child instanceof Leaf) {
+            Leaf leaf = (Leaf) child;
+            if (left != null && left.count > minLeafKeys) {
+                System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.count);
+                leaf.keys[0] = left.keys[--left.count];
+                left.keys[left.count] = null;
+                leaf.count++;
+                parent.keys[index - 1] = leaf.keys[0];
+            } else if (right != null && right.count > minLeafKeys) {
+                leaf.keys[leaf.count++] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0, --right.count);
+                right.keys[right.count] = null;
+                parent.keys[index] = right.keys[0];
+            } else if (left != null) {
+                mergeLeaves(parent, index - 1);
+            } else {
+                mergeLeaves(parent, index);
+            }
+            return;
+        }
+
+        Inner inner = (Inner) child;
+        if (left != null && left.count > minChildren) {
+            Inner donor = (Inner) left;
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.count - 1);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.count);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = donor.children[donor.count - 1];
+            inner.count++;
+            parent.keys[index - 1] = donor.keys[donor.count - 2];
+            donor.keys[donor.count - 2] = null;
+            donor.children[--donor.count] = null;
+        } else if (right != null && right.count > minChildren) {
+            Inner donor = (Inner) right;
+            inner.keys[inner.count - 1] = parent.keys[index];
+            inner.children[inner.count++] = donor.children[0];
+            parent.keys[index] = donor.keys[0];
+            System.arraycopy(donor.keys, 1, donor.keys, 0, donor.count - 2);
+            System.arraycopy(donor.children, 1, donor.children, 0, donor.count - 1);
+            donor.keys[donor.count - 2] = null;
+            donor.children[--donor.count] = null;
+        } else if (left != null) {
+            mergeInner(parent, index - 1);
+        } else {
+            mergeInner(parent, index);
+        }
+    }
+
+    /**
+     * Moves keys of children[index + 1] into children[index] and removes the emptied leaf from parent
+     */
+    private void mergeLeaves(Inner parent, int index) {
+        Leaf left = (Leaf) parent.children[index];
+        Leaf right = (Leaf) parent.children[index + 1];
+        System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+        left.count += right.count;
+        left.next = right.next;
+        removeChild(parent, index);
+    }
+
+    /**
+     * Moves separator and children of children[index + 1] into children[index]
+     */
+    private void mergeInner(Inner parent, int index) {
+        Inner left = (Inner) parent.children[index];
+        Inner right = (Inner) parent.children[index + 1];
+        left.keys[left.count - 1] = parent.keys[index];
+        System.arraycopy(right.keys, 0, left.keys, left.count, right.count - 1);
+        System.arraycopy(right.children, 0, left.children, left.count, right.count);
+        left.count += right.count;
+        removeChild(parent, index);
+    }
+
+    /**
+     * Removes separator keys[index] and child children[index + 1] of parent
+     */
+    private void removeChild(Inner parent, int index) {
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.count - 2 - index);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - 2 - index);
+        parent.count--;
+        parent.keys[parent.count - 1] = null;
+        parent.children[parent.count] = null;
+    }
+
+    /**
+     * Checks if key is in tree. O(logN), O(log_fanout N) nodes are read
+     */
+    public boolean contains(T data) {
+        Leaf leaf = findLeaf(data);
+        int index = lowerBound(leaf.keys, leaf.count, data);
+        return index < leaf.count && data.compareTo(key(leaf.keys, index)) == 0;
+    }
+
+    /**
+     * Returns the smallest key. O(1)
+     * @throws NoSuchElementException if tree is empty
+     */
+    public T first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        return key(firstLeaf.keys, 0);
+    }
+
+    /**
+     * Returns the greatest key. O(log_fanout N)
+     * @throws NoSuchElementException if tree is empty
+     */
+    public T last() {
+        if (size == 0) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[node.count - 1];
+        }
+        return key(node.keys, node.count - 1);
+    }
+
+    /**
+     * Returns number of keys. O(1)
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of levels, 1 for a single leaf. O(1)
+     */
+    public int height() {
+        return height;
+    }
+
+    public int getFanout() {
+        return fanout;
+    }
+
+    /**
+     * Removes all keys. O(1)
+     */
+    public void clear() {
+        firstLeaf = new Leaf(fanout);
+        root = firstLeaf;
+        size = 0;
+        height = 1;
+    }
+
+    /**
+     * Ascending iterator, walks leaves by sibling links
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new LeafIterator(firstLeaf, 0, null);
+    }
+
+    /**
+     * Ascending elements of [lo, hi)
+     */
+    public Iterable<T> range(T lo, T hi) {
+        return () -> iteratorFrom(lo, hi);
+    }
+
+    /**
+     * Ascending elements less than hi
+     */
+    public Iterable<T> headSet(T hi) {
+        return () -> new LeafIterator(firstLeaf, 0, hi);
+    }
+
+    /**
+     * Ascending elements greater than or equal to lo
+     */
+    public Iterable<T> tailSet(T lo) {
+        return () -> iteratorFrom(lo, null);
+    }
+
+    private Iterator<T> iteratorFrom(T lo, T hi) {
+        Leaf leaf = findLeaf(lo);
+        return new LeafIterator(leaf, lowerBound(leaf.keys, leaf.count, lo), hi);
+    }
+
+    /**
+     * Iterator over leaves from keys[index] of leaf, stops before hi (null - no bound)
+     */
+    private final class LeafIterator implements Iterator<T> {
+        private Leaf leaf;
+        private int index;
+        private final T hi;
+
+        LeafIterator(Leaf leaf, int index, T hi) {
+            this.leaf = leaf;
+            this.index = index;
+            this.hi = hi;
+            skipExhaustedLeaves();
+        }
+
+        private void skipExhaustedLeaves() {
+            while (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            if (leaf != null && hi != null && key(leaf.keys, index).compareTo(hi) >= 0) {
+                leaf = null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public T next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            T data = key(leaf.keys, index++);
+            skipExhaustedLeaves();
+            return data;
+        }
+    }
+
+    private Leaf findLeaf(T data) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, data)];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Index of child, which may contain data: number of separators less than or equal to data
+     */
+    private int childIndex(Inner inner, T data) {
+        int lo = 0;
+        int hi = inner.count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data.compareTo(key(inner.keys, mid)) >= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Index of the first key, which is greater than or equal to data (count if there is none)
+     */
+    private int lowerBound(Object[] keys, int count, T data) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(keys, mid).compareTo(data) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(Object[] keys, int index) {
+        return (T) keys[index];
+    }
+}
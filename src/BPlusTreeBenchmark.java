@@ -0,0 +1,72 @@
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Замер поиска по ключу: BPlusTree против AVLTree и SearchXT.
+ * <p>
+ * Деревья заполняются одними и теми же SIZE случайными ключами (в случайном порядке, чтобы SearchXT
+ * без балансировки не выродился в список), затем выполняется LOOKUPS поисков случайных ключей,
+ * половина из которых есть в дереве. Перед замером каждый сценарий прогревается.
+ * Запуск: java BPlusTreeBenchmark [size]
+ */
+public class BPlusTreeBenchmark {
+    private static final int LOOKUPS = 2_000_000;
+    private static final int ROUNDS = 5;
+    private static final int[] FANOUTS = {16, 64, 128};
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(40);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt(Integer.MAX_VALUE) & ~1; // Чётные ключи есть в дереве, нечётные - нет
+        }
+        int[] queries = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int key = keys[random.nextInt(size)];
+            queries[i] = random.nextBoolean() ? key : key + 1;
+        }
+
+        System.out.println("Поиск, нс на операцию, ключей " + size);
+        AVLTree<Integer> avl = new AVLTree<>();
+        SearchXT<Integer> searchXT = new SearchXT<>();
+        for (Integer key : keys) {
+            avl.insert(key);
+            searchXT.insert(key);
+        }
+        double avlTime = measure(avl::contains, queries);
+        System.out.printf("%-20s %8.1f%n", "AVLTree", avlTime);
+        System.out.printf("%-20s %8.1f%n", "SearchXT", measure(searchXT::search, queries));
+        for (int fanout : FANOUTS) {
+            BPlusTree<Integer> tree = new BPlusTree<>(fanout);
+            for (Integer key : keys) {
+                tree.insert(key);
+            }
+            double time = measure(tree::contains, queries);
+            System.out.printf("%-20s %8.1f  (x%.2f к AVLTree, уровней %d)%n",
+                    "BPlusTree(" + fanout + ")", time, avlTime / time, tree.height());
+        }
+    }
+
+    /**
+     * Среднее время одного поиска в лучшем из ROUNDS проходов, после прогрева
+     */
+    private static double measure(IntPredicate contains, int[] queries) {
+        long found = 0;
+        for (int query : queries) { // Прогрев
+            found += contains.test(query) ? 1 : 0;
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int query : queries) {
+                found += contains.test(query) ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (found == 42) { // Результат используется, чтобы JIT не выбросил поиск
+            System.out.print("");
+        }
+        return (double) best / queries.length;
+    }
+}
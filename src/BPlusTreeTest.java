@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+class BPlusTreeTest {
+
+    @Test
+    void testRandomOperationsMatchTreeSet() {
+        for (int fanout : new int[]{4, 5, 16, 64}) {
+            BPlusTree<Integer> tree = new BPlusTree<>(fanout);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(40 + fanout);
+            for (int i = 0; i < 20000; i++) {
+                int value = random.nextInt(3000);
+                if (random.nextInt(5) < 2) {
+                    tree.delete(value);
+                    expected.remove(value);
+                } else {
+                    tree.insert(value);
+                    expected.add(value);
+                }
+            }
+            assertEquals(expected.size(), tree.size());
+            assertIterableEquals(new ArrayList<>(expected), tree);
+            for (int i = 0; i < 3000; i++) {
+                assertEquals(expected.contains(i), tree.contains(i));
+            }
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    @Test
+    void testDeleteAllShrinksTree() {
+        BPlusTree<Integer> tree = new BPlusTree<>(4);
+        for (int i = 0; i < 1000; i++) {
+            tree.insert(i);
+        }
+        assertTrue(tree.height() > 3);
+        for (int i = 0; i < 1000; i += 2) {
+            tree.delete(i);
+        }
+        for (int i = 999; i >= 0; i -= 2) {
+            tree.delete(i);
+        }
+        assertTrue(tree.isEmpty());
+        assertEquals(1, tree.height());
+        assertFalse(tree.iterator().hasNext());
+        assertThrows(NoSuchElementException.class, tree::first);
+        tree.insert(7);
+        assertEquals(List.of(7), toList(tree));
+    }
+
+    @Test
+    void testRangeScans() {
+        BPlusTree<Integer> tree = new BPlusTree<>(8);
+        for (int i = 0; i < 500; i += 5) {
+            tree.insert(i);
+        }
+        assertEquals(List.of(100, 105, 110), toList(tree.range(98, 115)));
+        assertEquals(List.of(0, 5), toList(tree.headSet(10)));
+        assertEquals(List.of(490, 495), toList(tree.tailSet(486)));
+        assertTrue(toList(tree.range(101, 104)).isEmpty());
+        assertTrue(toList(tree.tailSet(1000)).isEmpty());
+
+        Iterator<Integer> iterator = tree.range(490, 500).iterator();
+        iterator.next();
+        iterator.next();
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThrows(IllegalArgumentException.class, () -> new BPlusTree<Integer>(3));
+    }
+
+    private static List<Integer> toList(Iterable<Integer> items) {
+        List<Integer> result = new ArrayList<>();
+        items.forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Многопоточный замер пропускной способности: ConcurrentAVLTree против AVLTree под глобальной блокировкой
+ * и ConcurrentSkipListSet.
+ * <p>
+ * Каждый поток в течение RUN_MILLIS выполняет случайные операции над ключами из [0, KEY_RANGE):
+ * CONTAINS_PERCENT% поиска, остальное поровну вставка и удаление. Дерево заранее заполнено наполовину.
+ * Перед замером выполняется прогрев того же сценария.
+ * Запуск: java ConcurrentAVLBenchmark [contains%]
+ */
+public class ConcurrentAVLBenchmark {
+    private static final int KEY_RANGE = 1 << 20;
+    private static final int RUN_MILLIS = 2000;
+    private static final int WARMUP_MILLIS = 1000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    /**
+     * Общий интерфейс испытуемых множеств
+     */
+    private interface IntSet {
+        boolean contains(int key);
+
+        void insert(int key);
+
+        void delete(int key);
+    }
+
+    private static IntSet concurrentAvl() {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        return new IntSet() {
+            @Override
+            public boolean contains(int key) { return tree.contains(key); }
+
+            @Override
+            public void insert(int key) { tree.insert(key); }
+
+            @Override
+            public void delete(int key) { tree.delete(key); }
+        };
+    }
+
+    private static IntSet globalLockAvl() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        Object lock = new Object();
+        return new IntSet() {
+            @Override
+            public boolean contains(int key) { synchronized (lock) { return tree.contains(key); } }
+
+            @Override
+            public void insert(int key) { synchronized (lock) { tree.insert(key); } }
+
+            @Override
+            public void delete(int key) { synchronized (lock) { tree.delete(key); } }
+        };
+    }
+
+    private static IntSet skipList() {
+        ConcurrentSkipListSet<Integer> set = new ConcurrentSkipListSet<>();
+        return new IntSet() {
+            @Override
+            public boolean contains(int key) { return set.contains(key); }
+
+            @Override
+            public void insert(int key) { set.add(key); }
+
+            @Override
+            public void delete(int key) { set.remove(key); }
+        };
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int containsPercent = args.length > 0 ? Integer.parseInt(args[0]) : 90;
+        System.out.println("Операций в секунду (млн), поиск " + containsPercent + "%, ключей " + KEY_RANGE);
+        System.out.printf("%8s %18s %18s %18s%n", "потоков", "ConcurrentAVLTree", "AVLTree+lock", "SkipListSet");
+        for (int threads : THREADS) {
+            double concurrent = measure(concurrentAvl(), threads, containsPercent);
+            double locked = measure(globalLockAvl(), threads, containsPercent);
+            double skip = measure(skipList(), threads, containsPercent);
+            System.out.printf("%8d %18.2f %18.2f %18.2f%n", threads, concurrent, locked, skip);
+        }
+    }
+
+    private static double measure(IntSet set, int threads, int containsPercent) throws InterruptedException {
+        for (int key = 0; key < KEY_RANGE; key += 2) {
+            set.insert(key);
+        }
+        run(set, threads, containsPercent, WARMUP_MILLIS);
+        long ops = run(set, threads, containsPercent, RUN_MILLIS);
+        return ops / (RUN_MILLIS / 1000.0) / 1e6;
+    }
+
+    private static long run(IntSet set, int threads, int containsPercent, int millis) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    int key = random.nextInt(KEY_RANGE);
+                    int op = random.nextInt(100);
+                    if (op < containsPercent) {
+                        set.contains(key);
+                    } else if ((op & 1) == 0) {
+                        set.insert(key);
+                    } else {
+                        set.delete(key);
+                    }
+                    count++;
+                }
+                ops.add(count);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Узел конкурентного AVL дерева (Bronson et al.).
+ * <p>
+ * Поля изменяются только под монитором узла (и, при перестановке, его родителя),
+ * а читаются без блокировок, поэтому все они volatile.
+ * version - версия для оптимистичной проверки: бит SHRINKING выставлен, пока узел опускается при повороте,
+ * UNLINKED - узел удалён из дерева, остальные биты - счётчик поворотов.
+ * @param <T> тип данных узла
+ */
+final class ConcurrentAVLNode<T> {
+    static final long SHRINKING = 1L;
+    static final long UNLINKED = 2L;
+    static final long SHRINK_COUNT_INCREMENT = 4L;
+
+    final T key;
+    volatile boolean present; // false - маршрутный узел: ключ удалён, но узел ещё нужен как развилка
+    volatile int height; // Высота листа равна 1, отсутствующего узла - 0
+    volatile long version;
+    volatile ConcurrentAVLNode<T> parent;
+    volatile ConcurrentAVLNode<T> left;
+    volatile ConcurrentAVLNode<T> right;
+
+    ConcurrentAVLNode(T key, boolean present, int height, ConcurrentAVLNode<T> parent) {
+        this.key = key;
+        this.present = present;
+        this.height = height;
+        this.parent = parent;
+    }
+
+    /**
+     * Потомок в направлении dir: dir < 0 - левый, иначе правый
+     */
+    ConcurrentAVLNode<T> child(int dir) {
+        return dir < 0 ? left : right;
+    }
+
+    void setChild(int dir, ConcurrentAVLNode<T> node) {
+        if (dir < 0) {
+            left = node;
+        } else {
+            right = node;
+        }
+    }
+
+    static int heightOf(ConcurrentAVLNode<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    static boolean isShrinking(long version) {
+        return (version & SHRINKING) != 0;
+    }
+
+    static boolean isUnlinked(long version) {
+        return (version & UNLINKED) != 0;
+    }
+}
@@ -0,0 +1,671 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Конкурентное AVL дерево с оптимистичной проверкой версий (Bronson, Casper, Chafi, Olukotun,
+ * "A Practical Concurrent Binary Search Tree", PPoPP 2010).
+ * <p>
+ * <ul>
+ *     <li>{@link #contains(Comparable)} - без блокировок: спуск "рука за руку" с проверкой версий узлов,
+ *     при конфликте с поворотом спуск повторяется с ближайшего достоверного узла</li>
+ *     <li>{@link #insert(Comparable)}, {@link #delete(Comparable)} - блокируется только изменяемый узел
+ *     (и его родитель при отвязывании)</li>
+ *     <li>Балансировка ослабленная: высоты исправляются и повороты выполняются после изменения,
+ *     локально, с блокировками не выше родителя; дерево может быть временно несбалансированным</li>
+ *     <li>Удаление узла с двумя потомками только снимает флаг present, узел остаётся маршрутным
+ *     и отвязывается, когда у него останется один потомок</li>
+ * </ul>
+ * Блокировки всегда берутся сверху вниз (родитель, затем потомок), поэтому взаимных блокировок нет.
+ *
+ * @param <T> Тип данных узла дерева, должен быть Comparable.
+ */
+public class ConcurrentAVLTree<T extends Comparable<T>> {
+    private static final Object RETRY = new Object();
+    private static final Object FOUND = new Object();
+    private static final Object NOT_FOUND = new Object();
+
+    // Результаты nodeCondition, неотрицательные значения - новая высота узла
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final int SPIN_COUNT = 100;
+
+    // Фиктивный узел над корнем: корень дерева - его правый потомок
+    private final ConcurrentAVLNode<T> rootHolder = new ConcurrentAVLNode<>(null, false, 0, null);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Checks if element is in tree. O(logN), lock-free
+     */
+    public boolean contains(T key) {
+        while (true) {
+            Object result = attemptGet(key, rootHolder, 1, 0L);
+            if (result != RETRY) {
+                return result == FOUND;
+            }
+        }
+    }
+
+    /**
+     * Returns number of elements. Exact only when no writes are in progress. O(1)
+     */
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Вставляет элемент. O(logN)
+     * @return true, если элемента не было в дереве
+     */
+    public boolean insert(T key) {
+        boolean added = (Boolean) update(key, true);
+        if (added) {
+            size.increment();
+        }
+        return added;
+    }
+
+    /**
+     * Удаляет элемент. O(logN)
+     * @return true, если элемент был в дереве
+     */
+    public boolean delete(T key) {
+        boolean removed = (Boolean) update(key, false);
+        if (removed) {
+            size.decrement();
+        }
+        return removed;
+    }
+
+    /**
+     * Elements in ascending order. The traversal is not atomic: elements inserted or deleted
+     * during the call may be missed. O(n)
+     */
+    public List<T> toList() {
+        List<T> result = new ArrayList<>();
+        collect(rootHolder.right, result);
+        return result;
+    }
+
+    private void collect(ConcurrentAVLNode<T> node, List<T> result) {
+        if (node != null) {
+            collect(node.left, result);
+            if (node.present) {
+                result.add(node.key);
+            }
+            collect(node.right, result);
+        }
+    }
+
+    // ---------------------------------------------------------------- поиск
+
+    /**
+     * Ищет key в поддереве потомка node в направлении dir.
+     * nodeV - версия node, при которой node был достоверным шагом пути; её изменение значит,
+     * что node мог опуститься при повороте и искомый ключ мог уйти из его поддерева.
+     */
+    private Object attemptGet(T key, ConcurrentAVLNode<T> node, int dir, long nodeV) {
+        while (true) {
+            ConcurrentAVLNode<T> child = node.child(dir);
+            if (node.version != nodeV) {
+                return RETRY;
+            }
+            if (child == null) {
+                return NOT_FOUND;
+            }
+            int nextD = key.compareTo(child.key);
+            if (nextD == 0) {
+                return child.present ? FOUND : NOT_FOUND;
+            }
+            long childV = child.version;
+            if (ConcurrentAVLNode.isShrinking(childV)) {
+                waitUntilNotChanging(child);
+            } else if (!ConcurrentAVLNode.isUnlinked(childV) && child == node.child(dir)) {
+                if (node.version != nodeV) {
+                    return RETRY; // Шаг к child был сделан по устаревшему node
+                }
+                Object result = attemptGet(key, child, nextD, childV);
+                if (result != RETRY) {
+                    return result;
+                }
+                // child изменился, повторяем с node, который ещё достоверен
+            }
+        }
+    }
+
+    private static void waitUntilNotChanging(ConcurrentAVLNode<?> node) {
+        long version = node.version;
+        if (ConcurrentAVLNode.isShrinking(version)) {
+            for (int i = 0; i < SPIN_COUNT; i++) {
+                if (node.version != version) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+            synchronized (node) { // Поворот держит монитор узла, ждём его окончания
+                assert node.version != version;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- вставка и удаление
+
+    /**
+     * Делает присутствие key равным present. Возвращает Boolean: изменилось ли присутствие
+     */
+    private Object update(T key, boolean present) {
+        while (true) {
+            Object result = attemptUpdate(key, present, rootHolder, 1, 0L);
+            if (result != RETRY) {
+                return result;
+            }
+        }
+    }
+
+    private Object attemptUpdate(T key, boolean present, ConcurrentAVLNode<T> node, int dir, long nodeV) {
+        while (true) {
+            ConcurrentAVLNode<T> child = node.child(dir);
+            if (node.version != nodeV) {
+                return RETRY;
+            }
+            Object result = RETRY;
+            if (child == null) {
+                if (!present) {
+                    return Boolean.FALSE; // Удалять нечего
+                }
+                result = attemptInsert(key, node, dir, nodeV);
+            } else {
+                int nextD = key.compareTo(child.key);
+                if (nextD == 0) {
+                    result = present ? attemptRevive(child) : attemptRemoveNode(node, child);
+                } else {
+                    long childV = child.version;
+                    if (ConcurrentAVLNode.isShrinking(childV)) {
+                        waitUntilNotChanging(child);
+                    } else if (!ConcurrentAVLNode.isUnlinked(childV) && child == node.child(dir)) {
+                        if (node.version != nodeV) {
+                            return RETRY;
+                        }
+                        result = attemptUpdate(key, present, child, nextD, childV);
+                    }
+                }
+            }
+            if (result != RETRY) {
+                return result;
+            }
+        }
+    }
+
+    private Object attemptInsert(T key, ConcurrentAVLNode<T> node, int dir, long nodeV) {
+        synchronized (node) {
+            if (node.version != nodeV || node.child(dir) != null) {
+                return RETRY;
+            }
+            node.setChild(dir, new ConcurrentAVLNode<>(key, true, 1, node));
+        }
+        fixHeightAndRebalance(node);
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Ключ найден в узле: делает его присутствующим (узел мог быть маршрутным)
+     */
+    private Object attemptRevive(ConcurrentAVLNode<T> node) {
+        synchronized (node) {
+            if (ConcurrentAVLNode.isUnlinked(node.version)) {
+                return RETRY;
+            }
+            boolean wasPresent = node.present;
+            node.present = true;
+            return !wasPresent;
+        }
+    }
+
+    private static boolean canUnlink(ConcurrentAVLNode<?> node) {
+        return node.left == null || node.right == null;
+    }
+
+    /**
+     * Удаляет ключ из узла n с родителем parent: отвязывает узел, если у него не больше одного потомка,
+     * иначе делает его маршрутным
+     */
+    private Object attemptRemoveNode(ConcurrentAVLNode<T> parent, ConcurrentAVLNode<T> n) {
+        if (!n.present) {
+            return Boolean.FALSE;
+        }
+        if (!canUnlink(n)) {
+            synchronized (n) {
+                if (ConcurrentAVLNode.isUnlinked(n.version) || canUnlink(n)) {
+                    return RETRY;
+                }
+                boolean wasPresent = n.present;
+                n.present = false;
+                return wasPresent;
+            }
+        }
+        synchronized (parent) {
+            if (ConcurrentAVLNode.isUnlinked(parent.version) || n.parent != parent) {
+                return RETRY;
+            }
+            synchronized (n) {
+                if (!n.present) {
+                    return Boolean.FALSE;
+                }
+                if (!canUnlink(n)) {
+                    return RETRY;
+                }
+                ConcurrentAVLNode<T> splice = n.left != null ? n.left : n.right;
+                if (parent.left == n) {
+                    parent.left = splice;
+                } else {
+                    parent.right = splice;
+                }
+                if (splice != null) {
+                    splice.parent = parent;
+                }
+                n.version = ConcurrentAVLNode.UNLINKED;
+                n.present = false;
+            }
+        }
+        fixHeightAndRebalance(parent);
+        return Boolean.TRUE;
+    }
+
+    // ---------------------------------------------------------------- балансировка
+
+    /**
+     * Что нужно сделать с узлом: отвязать, повернуть, исправить высоту (возвращается новая высота) или ничего
+     */
+    private static int nodeCondition(ConcurrentAVLNode<?> node) {
+        ConcurrentAVLNode<?> nL = node.left;
+        ConcurrentAVLNode<?> nR = node.right;
+        if ((nL == null || nR == null) && !node.present) {
+            return UNLINK_REQUIRED;
+        }
+        int hN = node.height;
+        int hL0 = ConcurrentAVLNode.heightOf(nL);
+        int hR0 = ConcurrentAVLNode.heightOf(nR);
+        int hNRepl = 1 + Math.max(hL0, hR0);
+        int bal = hL0 - hR0;
+        if (bal < -1 || bal > 1) {
+            return REBALANCE_REQUIRED;
+        }
+        return hN != hNRepl ? hNRepl : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Поднимается от node к корню, исправляя высоты и выполняя повороты, пока это нужно
+     */
+    private void fixHeightAndRebalance(ConcurrentAVLNode<T> node) {
+        while (node != null && node.parent != null) {
+            int condition = nodeCondition(node);
+            if (condition == NOTHING_REQUIRED || ConcurrentAVLNode.isUnlinked(node.version)) {
+                return;
+            }
+            if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    node = fixHeight(node);
+                }
+            } else {
+                ConcurrentAVLNode<T> nParent = node.parent;
+                synchronized (nParent) {
+                    if (!ConcurrentAVLNode.isUnlinked(nParent.version) && node.parent == nParent) {
+                        synchronized (node) {
+                            node = rebalance(nParent, node);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Исправляет высоту node (монитор node захвачен). Возвращает следующий узел для проверки или null
+     */
+    private ConcurrentAVLNode<T> fixHeight(ConcurrentAVLNode<T> node) {
+        int condition = nodeCondition(node);
+        switch (condition) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                return node; // Нужен монитор родителя, fixHeightAndRebalance повторит с ним
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent; // Высота изменилась, проверяем родителя
+        }
+    }
+
+    /**
+     * Отвязывает маршрутный узел или выполняет повороты (мониторы nParent и n захвачены)
+     */
+    private ConcurrentAVLNode<T> rebalance(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n) {
+        ConcurrentAVLNode<T> nL = n.left;
+        ConcurrentAVLNode<T> nR = n.right;
+        if ((nL == null || nR == null) && !n.present) {
+            return attemptUnlink(nParent, n) ? fixHeight(nParent) : n;
+        }
+        int hN = n.height;
+        int hL0 = ConcurrentAVLNode.heightOf(nL);
+        int hR0 = ConcurrentAVLNode.heightOf(nR);
+        int hNRepl = 1 + Math.max(hL0, hR0);
+        int bal = hL0 - hR0;
+        if (bal > 1) {
+            return rebalanceToRight(nParent, n, nL, hR0);
+        } else if (bal < -1) {
+            return rebalanceToLeft(nParent, n, nR, hL0);
+        } else if (hNRepl != hN) {
+            n.height = hNRepl;
+            return fixHeight(nParent);
+        }
+        return null;
+    }
+
+    private boolean attemptUnlink(ConcurrentAVLNode<T> parent, ConcurrentAVLNode<T> n) {
+        ConcurrentAVLNode<T> parentL = parent.left;
+        ConcurrentAVLNode<T> parentR = parent.right;
+        if (parentL != n && parentR != n) {
+            return false; // n уже не потомок parent
+        }
+        ConcurrentAVLNode<T> nL = n.left;
+        ConcurrentAVLNode<T> nR = n.right;
+        if (nL != null && nR != null) {
+            return false;
+        }
+        ConcurrentAVLNode<T> splice = nL != null ? nL : nR;
+        if (parentL == n) {
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null) {
+            splice.parent = parent;
+        }
+        n.version = ConcurrentAVLNode.UNLINKED;
+        return true;
+    }
+
+    private ConcurrentAVLNode<T> rebalanceToRight(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n,
+                                                  ConcurrentAVLNode<T> nL, int hR0) {
+        synchronized (nL) {
+            int hL = nL.height;
+            if (hL - hR0 <= 1) {
+                return n; // Пока ждали монитор, всё изменилось - повторить
+            }
+            ConcurrentAVLNode<T> nLR = nL.right;
+            int hLL0 = ConcurrentAVLNode.heightOf(nL.left);
+            int hLR0 = ConcurrentAVLNode.heightOf(nLR);
+            if (hLL0 >= hLR0) {
+                return rotateRight(nParent, n, nL, hR0, hLL0, nLR, hLR0);
+            }
+            synchronized (nLR) {
+                int hLR = nLR.height;
+                if (hLL0 >= hLR) {
+                    return rotateRight(nParent, n, nL, hR0, hLL0, nLR, hLR);
+                }
+                int hLRL = ConcurrentAVLNode.heightOf(nLR.left);
+                int b = hLL0 - hLRL;
+                if (b >= -1 && b <= 1 && !((hLL0 == 0 || hLRL == 0) && !nL.present)) {
+                    return rotateRightOverLeft(nParent, n, nL, hR0, hLL0, nLR, hLRL);
+                }
+            }
+            // Двойной поворот дал бы несбалансированный nL: сначала поворачиваем nL влево
+            return rebalanceToLeft(n, nL, nLR, hLL0);
+        }
+    }
+
+    private ConcurrentAVLNode<T> rebalanceToLeft(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n,
+                                                 ConcurrentAVLNode<T> nR, int hL0) {
+        synchronized (nR) {
+            int hR = nR.height;
+            if (hL0 - hR >= -1) {
+                return n;
+            }
+            ConcurrentAVLNode<T> nRL = nR.left;
+            int hRL0 = ConcurrentAVLNode.heightOf(nRL);
+            int hRR0 = ConcurrentAVLNode.heightOf(nR.right);
+            if (hRR0 >= hRL0) {
+                return rotateLeft(nParent, n, hL0, nR, nRL, hRL0, hRR0);
+            }
+            synchronized (nRL) {
+                int hRL = nRL.height;
+                if (hRR0 >= hRL) {
+                    return rotateLeft(nParent, n, hL0, nR, nRL, hRL, hRR0);
+                }
+                int hRLR = ConcurrentAVLNode.heightOf(nRL.right);
+                int b = hRR0 - hRLR;
+                if (b >= -1 && b <= 1 && !((hRR0 == 0 || hRLR == 0) && !nR.present)) {
+                    return rotateLeftOverRight(nParent, n, hL0, nR, nRL, hRR0, hRLR);
+                }
+            }
+            return rebalanceToRight(n, nR, nRL, hRR0);
+        }
+    }
+
+    private static long beginChange(long version) {
+        return version | ConcurrentAVLNode.SHRINKING;
+    }
+
+    private static long endChange(long version) {
+        return version + ConcurrentAVLNode.SHRINK_COUNT_INCREMENT;
+    }
+
+    /**
+     * Правый поворот: n опускается (SHRINKING на время поворота), nL поднимается.
+     * Возвращает узел, который ещё нужно проверить, или null
+     */
+    private ConcurrentAVLNode<T> rotateRight(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n,
+                                             ConcurrentAVLNode<T> nL, int hR, int hLL,
+                                             ConcurrentAVLNode<T> nLR, int hLR) {
+        long nodeOVL = n.version;
+        ConcurrentAVLNode<T> nPL = nParent.left;
+        n.version = beginChange(nodeOVL);
+
+        n.left = nLR;
+        if (nLR != null) {
+            nLR.parent = n;
+        }
+        nL.right = n;
+        n.parent = nL;
+        if (nPL == n) {
+            nParent.left = nL;
+        } else {
+            nParent.right = nL;
+        }
+        nL.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hLR, hR);
+        n.height = hNRepl;
+        nL.height = 1 + Math.max(hLL, hNRepl);
+
+        n.version = endChange(nodeOVL);
+
+        int balN = hLR - hR;
+        if (balN < -1 || balN > 1) {
+            return n;
+        }
+        if ((nLR == null || hR == 0) && !n.present) {
+            return n;
+        }
+        int balL = hLL - hNRepl;
+        if (balL < -1 || balL > 1) {
+            return nL;
+        }
+        if (hLL == 0 && !nL.present) {
+            return nL;
+        }
+        return fixHeight(nParent);
+    }
+
+    private ConcurrentAVLNode<T> rotateLeft(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n, int hL,
+                                            ConcurrentAVLNode<T> nR, ConcurrentAVLNode<T> nRL,
+                                            int hRL, int hRR) {
+        long nodeOVL = n.version;
+        ConcurrentAVLNode<T> nPL = nParent.left;
+        n.version = beginChange(nodeOVL);
+
+        n.right = nRL;
+        if (nRL != null) {
+            nRL.parent = n;
+        }
+        nR.left = n;
+        n.parent = nR;
+        if (nPL == n) {
+            nParent.left = nR;
+        } else {
+            nParent.right = nR;
+        }
+        nR.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hL, hRL);
+        n.height = hNRepl;
+        nR.height = 1 + Math.max(hNRepl, hRR);
+
+        n.version = endChange(nodeOVL);
+
+        int balN = hRL - hL;
+        if (balN < -1 || balN > 1) {
+            return n;
+        }
+        if ((nRL == null || hL == 0) && !n.present) {
+            return n;
+        }
+        int balR = hRR - hNRepl;
+        if (balR < -1 || balR > 1) {
+            return nR;
+        }
+        if (hRR == 0 && !nR.present) {
+            return nR;
+        }
+        return fixHeight(nParent);
+    }
+
+    /**
+     * Лево-правый поворот: n и nL опускаются, nLR поднимается на место n
+     */
+    private ConcurrentAVLNode<T> rotateRightOverLeft(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n,
+                                                     ConcurrentAVLNode<T> nL, int hR, int hLL,
+                                                     ConcurrentAVLNode<T> nLR, int hLRL) {
+        long nodeOVL = n.version;
+        long leftOVL = nL.version;
+        ConcurrentAVLNode<T> nPL = nParent.left;
+        ConcurrentAVLNode<T> nLRL = nLR.left;
+        ConcurrentAVLNode<T> nLRR = nLR.right;
+        int hLRR = ConcurrentAVLNode.heightOf(nLRR);
+
+        n.version = beginChange(nodeOVL);
+        nL.version = beginChange(leftOVL);
+
+        n.left = nLRR;
+        if (nLRR != null) {
+            nLRR.parent = n;
+        }
+        nL.right = nLRL;
+        if (nLRL != null) {
+            nLRL.parent = nL;
+        }
+        nLR.left = nL;
+        nL.parent = nLR;
+        nLR.right = n;
+        n.parent = nLR;
+        if (nPL == n) {
+            nParent.left = nLR;
+        } else {
+            nParent.right = nLR;
+        }
+        nLR.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hLRR, hR);
+        n.height = hNRepl;
+        int hLRepl = 1 + Math.max(hLL, hLRL);
+        nL.height = hLRepl;
+        nLR.height = 1 + Math.max(hLRepl, hNRepl);
+
+        n.version = endChange(nodeOVL);
+        nL.version = endChange(leftOVL);
+
+        int balN = hLRR - hR;
+        if (balN < -1 || balN > 1) {
+            return n;
+        }
+        if ((nLRR == null || hR == 0) && !n.present) {
+            return n;
+        }
+        int balLR = hLRepl - hNRepl;
+        if (balLR < -1 || balLR > 1) {
+            return nLR;
+        }
+        return fixHeight(nParent);
+    }
+
+    /**
+     * Право-левый поворот: n и nR опускаются, nRL поднимается на место n
+     */
+    private ConcurrentAVLNode<T> rotateLeftOverRight(ConcurrentAVLNode<T> nParent, ConcurrentAVLNode<T> n,
+                                                     int hL, ConcurrentAVLNode<T> nR, ConcurrentAVLNode<T> nRL,
+                                                     int hRR, int hRLR) {
+        long nodeOVL = n.version;
+        long rightOVL = nR.version;
+        ConcurrentAVLNode<T> nPL = nParent.left;
+        ConcurrentAVLNode<T> nRLL = nRL.left;
+        int hRLL = ConcurrentAVLNode.heightOf(nRLL);
+        ConcurrentAVLNode<T> nRLR = nRL.right;
+
+        n.version = beginChange(nodeOVL);
+        nR.version = beginChange(rightOVL);
+
+        n.right = nRLL;
+        if (nRLL != null) {
+            nRLL.parent = n;
+        }
+        nR.left = nRLR;
+        if (nRLR != null) {
+            nRLR.parent = nR;
+        }
+        nRL.right = nR;
+        nR.parent = nRL;
+        nRL.left = n;
+        n.parent = nRL;
+        if (nPL == n) {
+            nParent.left = nRL;
+        } else {
+            nParent.right = nRL;
+        }
+        nRL.parent = nParent;
+
+        int hNRepl = 1 + Math.max(hL, hRLL);
+        n.height = hNRepl;
+        int hRRepl = 1 + Math.max(hRLR, hRR);
+        nR.height = hRRepl;
+        nRL.height = 1 + Math.max(hNRepl, hRRepl);
+
+        n.version = endChange(nodeOVL);
+        nR.version = endChange(rightOVL);
+
+        int balN = hRLL - hL;
+        if (balN < -1 || balN > 1) {
+            return n;
+        }
+        if ((nRLL == null || hL == 0) && !n.present) {
+            return n;
+        }
+        int balRL = hRRepl - hNRepl;
+        if (balRL < -1 || balRL > 1) {
+            return nRL;
+        }
+        return fixHeight(nParent);
+    }
+
+    /**
+     * Height of tree (0 for empty), for tests and diagnostics. Exact only when no writes are in progress
+     */
+    int height() {
+        return ConcurrentAVLNode.heightOf(rootHolder.right);
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ConcurrentAVLTreeTest {
+
+    @Test
+    void testSequentialMatchesTreeSet() {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), tree.delete(value));
+            } else {
+                assertEquals(expected.add(value), tree.insert(value));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.toList());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(expected.contains(i), tree.contains(i));
+        }
+    }
+
+    @Test
+    void testSortedInsertStaysBalanced() {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        for (int i = 0; i < 1 << 16; i++) {
+            tree.insert(i);
+        }
+        // AVL height bound: 1.44 * log2(n + 2)
+        assertTrue(tree.height() <= 24, "Height " + tree.height());
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws InterruptedException {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        int writers = 4;
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+
+        for (int t = 0; t < writers; t++) {
+            int stripe = t;
+            TreeSet<Integer> own = new TreeSet<>();
+            expected.add(own);
+            threads.add(new Thread(() -> {
+                Random random = new Random(stripe);
+                for (int i = 0; i < 50_000; i++) {
+                    int value = random.nextInt(5000) * writers + stripe; // Every writer owns its keys
+                    if (random.nextInt(3) == 0) {
+                        if (own.remove(value) != tree.delete(value)) {
+                            errors.add(new AssertionError("delete " + value));
+                        }
+                    } else if (own.add(value) != tree.insert(value)) {
+                        errors.add(new AssertionError("insert " + value));
+                    }
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            Random random = new Random(99);
+            while (!stop.get()) {
+                tree.contains(random.nextInt(5000 * writers));
+            }
+        });
+        reader.start();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        stop.set(true);
+        reader.join();
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        TreeSet<Integer> all = new TreeSet<>();
+        expected.forEach(all::addAll);
+        assertEquals(new ArrayList<>(all), tree.toList());
+        assertEquals(all.size(), tree.size());
+        for (int i = 0; i < 5000 * writers; i++) {
+            assertEquals(all.contains(i), tree.contains(i));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Замер поиска с холодным кэшем: {@link AVLTree#freeze()}, {@link AVLTree#freeze(java.util.function.ToIntFunction)}
+ * и {@link IntAVLTree#freeze()} против самих деревьев.
+ * <p>
+ * Индексы строятся из SIZE случайных ключей, рабочий набор AVLTree (узлы и Integer) больше L3 кэша.
+ * Запросы - случайные ключи по всему диапазону, половина из них есть в дереве, поэтому нижние уровни поиска
+ * почти всегда промахиваются мимо кэша. Замеряются contains и floor. Перед замером каждый сценарий прогревается.
+ * Запуск: java -Xmx3g EytzingerBenchmark [size]
+ */
+public class EytzingerBenchmark {
+    private static final int LOOKUPS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 8_000_000;
+        Random random = new Random(41);
+        AVLTree<Integer> avl = new AVLTree<>();
+        IntAVLTree intAvl = new IntAVLTree(size);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt(Integer.MAX_VALUE) & ~1; // Чётные ключи есть в дереве, нечётные - нет
+            avl.insert(keys[i]);
+            intAvl.insert(keys[i]);
+        }
+        int[] queries = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int key = keys[random.nextInt(size)];
+            queries[i] = random.nextBoolean() ? key : key + 1;
+        }
+        keys = null;
+        EytzingerIndex<Integer> frozen = avl.freeze();
+        IntEytzingerIndex keyFrozen = avl.freeze(Integer::intValue);
+        IntEytzingerIndex intFrozen = intAvl.freeze();
+
+        System.out.println("Поиск, нс на операцию, ключей " + avl.size());
+        double avlContains = measure(avl::contains, queries);
+        double avlFloor = measure(key -> avl.floor(key) != null, queries);
+        report("AVLTree.contains", avlContains, avlContains);
+        report("AVLTree.floor", avlFloor, avlFloor);
+        report("freeze().contains", measure(frozen::contains, queries), avlContains);
+        report("freeze().floor", measure(key -> frozen.floor(key) != null, queries), avlFloor);
+        report("freeze(intValue).contains", measure(keyFrozen::contains, queries), avlContains);
+        report("freeze(intValue).floor", measure(key -> keyFrozen.floor(key).isPresent(), queries), avlFloor);
+        report("IntAVLTree.contains", measure(intAvl::contains, queries), avlContains);
+        report("IntAVLTree.freeze().contains", measure(intFrozen::contains, queries), avlContains);
+        report("IntAVLTree.freeze().floor", measure(key -> intFrozen.floor(key).isPresent(), queries), avlFloor);
+    }
+
+    private static void report(String name, double time, double baseline) {
+        System.out.printf("%-30s %8.1f  (x%.2f к AVLTree)%n", name, time, baseline / time);
+    }
+
+    /**
+     * Среднее время одного поиска в лучшем из ROUNDS проходов, после прогрева
+     */
+    private static double measure(IntPredicate lookup, int[] queries) {
+        long found = 0;
+        for (int query : queries) { // Прогрев
+            found += lookup.test(query) ? 1 : 0;
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int query : queries) {
+                found += lookup.test(query) ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (found == 42) { // Результат используется, чтобы JIT не выбросил поиск
+            System.out.print("");
+        }
+        return (double) best / queries.length;
+    }
+}
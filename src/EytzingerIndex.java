@@ -0,0 +1,151 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемый отсортированный индекс в раскладке Эйтцингера (BFS порядок), создаётся {@link AVLTree#freeze()}.
+ * <p>
+ * Элементы лежат в одном плоском массиве: корень в ячейке 1, потомки ячейки k - в 2k и 2k + 1.
+ * Первые уровни поиска занимают несколько соседних кэш-линий, а следующая ячейка вычисляется без ветвлений:
+ * k = 2k + (результат сравнения), вместо перехода по ссылке на узел, как в дереве.
+ * Ответ восстанавливается из пути: последний поворот налево (для ceiling) или направо (для floor)
+ * закодирован последним нулевым или единичным битом k.
+ * <p>
+ * Основные методы: {@link #contains(Object)}, {@link #floor(Object)}, {@link #ceiling(Object)},
+ * {@link #rank(Object)} - O(logN), {@link #size()} - O(1).
+ * <p>
+ * Раскладка выигрывает, только если сравнение не ходит по ссылке: для ключей-обёрток (Integer, Long) каждая ячейка
+ * ведёт к отдельному объекту, и поиск с холодным кэшем не быстрее дерева (см. EytzingerBenchmark).
+ * Для int ключей есть {@link IntEytzingerIndex} из {@link AVLTree#freeze(java.util.function.ToIntFunction)}
+ * и {@link IntAVLTree#freeze()}.
+ *
+ * @param <T> Тип элементов
+ */
+public final class EytzingerIndex<T> {
+    private final Object[] items; // items[1..n] in Eytzinger order, items[0] is unused
+    private final int[] ranks; // ranks[k] - position of items[k] in ascending order
+    private final int size;
+    private final Comparator<? super T> comparator; // Order of source tree, null means natural order
+
+    /**
+     * Builds index from ascending elements. O(n)
+     * @param sorted iterator over exactly size ascending elements
+     * @param comparator order of elements, null for natural order
+     */
+    EytzingerIndex(Iterator<T> sorted, int size, Comparator<? super T> comparator) {
+        this.size = size;
+        this.comparator = comparator;
+        this.items = new Object[size + 1];
+        this.ranks = new int[size + 1];
+        fill(sorted, 0, 1);
+    }
+
+    /**
+     * In-order walk over implicit tree puts sorted elements to their slots
+     * @return number of elements placed so far
+     */
+    private int fill(Iterator<T> sorted, int placed, int k) {
+        if (k <= size) {
+            placed = fill(sorted, placed, 2 * k);
+            items[k] = sorted.next();
+            ranks[k] = placed++;
+            placed = fill(sorted, placed, 2 * k + 1);
+        }
+        return placed;
+    }
+
+    /**
+     * Checks if element is in index. O(logN)
+     */
+    public boolean contains(T data) {
+        int k = ceilingSlot(data);
+        return k != 0 && compare(item(k), data) == 0;
+    }
+
+    /**
+     * Smallest element greater than or equal to data, or null. O(logN)
+     */
+    public T ceiling(T data) {
+        int k = ceilingSlot(data);
+        return k == 0 ? null : item(k);
+    }
+
+    /**
+     * Greatest element less than or equal to data, or null. O(logN)
+     */
+    public T floor(T data) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (compare(item(k), data) <= 0 ? 1 : 0); // Right, if element is a floor candidate
+        }
+        k >>>= Integer.numberOfTrailingZeros(k) + 1; // Drop path after the last right turn
+        return k == 0 ? null : item(k);
+    }
+
+    /**
+     * Number of elements strictly less than data, like {@link AVLTree#rank(Object)}. O(logN)
+     */
+    public int rank(T data) {
+        int k = ceilingSlot(data);
+        return k == 0 ? size : ranks[k];
+    }
+
+    /**
+     * Returns the smallest element. O(logN)
+     * @throws NoSuchElementException if index is empty
+     */
+    public T first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Index is empty");
+        }
+        int k = 1;
+        while (2 * k <= size) {
+            k *= 2;
+        }
+        return item(k);
+    }
+
+    /**
+     * Returns the greatest element. O(logN)
+     * @throws NoSuchElementException if index is empty
+     */
+    public T last() {
+        if (size == 0) {
+            throw new NoSuchElementException("Index is empty");
+        }
+        int k = 1;
+        while (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+        }
+        return item(k);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Slot of the smallest element >= data, 0 if there is none
+     */
+    private int ceilingSlot(T data) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (compare(item(k), data) < 0 ? 1 : 0); // Left, if element is a ceiling candidate
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1); // Drop path after the last left turn
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        return comparator == null ? ((Comparable<? super T>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int k) {
+        return (T) items[k];
+    }
+}
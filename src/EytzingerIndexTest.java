@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+class EytzingerIndexTest {
+
+    @Test
+    void testQueriesMatchTreeSet() {
+        for (int n : new int[]{1, 2, 3, 7, 8, 100, 1023, 1024, 5000}) {
+            AVLTree<Integer> tree = new AVLTree<>();
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(41 + n);
+            while (expected.size() < n) {
+                int value = random.nextInt(n * 4) * 2; // Только чётные, нечётные запросы попадают между элементами
+                tree.insert(value);
+                expected.add(value);
+            }
+            EytzingerIndex<Integer> index = tree.freeze();
+            assertEquals(n, index.size());
+            assertEquals(expected.first(), index.first());
+            assertEquals(expected.last(), index.last());
+            for (int query = -3; query < n * 8 + 3; query++) {
+                assertEquals(expected.contains(query), index.contains(query));
+                assertEquals(expected.floor(query), index.floor(query));
+                assertEquals(expected.ceiling(query), index.ceiling(query));
+                assertEquals(expected.headSet(query).size(), index.rank(query));
+            }
+        }
+    }
+
+    @Test
+    void testFreezeIsSnapshot() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        EytzingerIndex<Integer> empty = tree.freeze();
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains(1));
+        assertNull(empty.floor(1));
+        assertEquals(0, empty.rank(1));
+        assertThrows(NoSuchElementException.class, empty::first);
+
+        tree.insert(10);
+        tree.insert(20);
+        EytzingerIndex<Integer> index = tree.freeze();
+        tree.insert(15);
+        tree.delete(10);
+        assertTrue(index.contains(10));
+        assertFalse(index.contains(15));
+        assertEquals(10, index.floor(15));
+        assertEquals(1, index.rank(15));
+    }
+
+    @Test
+    void testFreezeByIntKey() {
+        AVLTree<Bulb> bulbs = AVLTree.byIntKey(bulb -> bulb.P);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(41);
+        for (int i = 0; i < 2000; i++) {
+            int power = random.nextInt(4000) * 2;
+            bulbs.insert(new Bulb(power));
+            expected.add(power);
+        }
+        IntEytzingerIndex index = bulbs.freeze(bulb -> bulb.P);
+        assertEquals(expected.size(), index.size());
+        for (int query = -3; query < 8003; query++) {
+            assertEquals(expected.contains(query), index.contains(query));
+            Integer floor = expected.floor(query);
+            assertEquals(floor == null ? -1 : floor, index.floor(query).orElse(-1));
+            assertEquals(expected.headSet(query).size(), index.rank(query));
+        }
+
+        AVLTree<Integer> multiset = new AVLTree<>(true);
+        for (int value : new int[]{3, 1, 3, 2, 3}) {
+            multiset.insert(value);
+        }
+        IntEytzingerIndex distinct = multiset.freeze(Integer::intValue); // Копии хранятся один раз
+        assertEquals(3, distinct.size());
+        assertEquals(3, distinct.last());
+
+        AVLTree<Integer> reversed = new AVLTree<>(Comparator.reverseOrder());
+        reversed.insert(1);
+        reversed.insert(2);
+        assertThrows(IllegalArgumentException.class, () -> reversed.freeze(Integer::intValue));
+    }
+}
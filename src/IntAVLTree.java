@@ -0,0 +1,327 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * AVL дерево для ключей int без объектов-узлов.
+ * <p>
+ * Узлы хранятся в параллельных массивах (struct-of-arrays): key[i], left[i], right[i], height[i] описывают узел i.
+ * Ссылки - индексы, 0 означает отсутствие узла (height[0] = 0, высота листа 1).
+ * Удалённые узлы попадают в список свободных (связан через left[]) и переиспользуются при вставке.
+ * Нет упаковки ключей, нет объекта на каждый узел, соседние узлы лежат рядом в памяти.
+ * <p>
+ * Основные методы: {@link #insert(int)}, {@link #delete(int)}, {@link #contains(int)} - O(logN),
+ * {@link #size()} - O(1), {@link #iterator()}, {@link #forEach(IntConsumer)}, {@link #toArray()} - обход по возрастанию,
+ * {@link #freeze()} - индекс только для чтения в раскладке Эйтцингера, O(n).
+ */
+public class IntAVLTree {
+    private static final int NIL = 0;
+
+    private int[] key;
+    private int[] left;
+    private int[] right;
+    private byte[] height; // Высота AVL дерева из 2^31 узлов не больше 45, byte достаточно
+
+    private int root = NIL;
+    private int size;
+    private int allocated = 1; // Узлы [1, allocated) выданы хотя бы раз, 0 - NIL
+    private int freeHead = NIL; // Начало списка свободных узлов
+
+    public IntAVLTree() {
+        this(16);
+    }
+
+    /**
+     * @param capacity начальное число узлов, массивы растут в 1.5 раза при заполнении
+     */
+    public IntAVLTree(int capacity) {
+        int length = Math.max(2, capacity + 1);
+        key = new int[length];
+        left = new int[length];
+        right = new int[length];
+        height = new byte[length];
+    }
+
+    /**
+     * Вставляет ключ. O(logN)
+     * @return true, если ключа не было
+     */
+    public boolean insert(int k) {
+        int before = size;
+        root = insert(root, k);
+        return size != before;
+    }
+
+    private int insert(int node, int k) {
+        if (node == NIL) {
+            size++;
+            return allocate(k);
+        }
+        // Потомок вычисляется до присваивания: вставка может заменить массивы при росте
+        if (k < key[node]) {
+            int child = insert(left[node], k);
+            left[node] = child;
+        } else if (k > key[node]) {
+            int child = insert(right[node], k);
+            right[node] = child;
+        } else {
+            return node; // Дубликаты не добавляем
+        }
+        return balance(node);
+    }
+
+    /**
+     * Удаляет ключ. O(logN)
+     * @return true, если ключ был
+     */
+    public boolean delete(int k) {
+        int before = size;
+        root = delete(root, k);
+        return size != before;
+    }
+
+    private int delete(int node, int k) {
+        if (node == NIL) {
+            return NIL;
+        }
+        if (k < key[node]) {
+            left[node] = delete(left[node], k);
+        } else if (k > key[node]) {
+            right[node] = delete(right[node], k);
+        } else {
+            if (left[node] == NIL || right[node] == NIL) {
+                int child = left[node] == NIL ? right[node] : left[node];
+                release(node);
+                size--;
+                return child;
+            }
+            int min = right[node];
+            while (left[min] != NIL) {
+                min = left[min];
+            }
+            key[node] = key[min];
+            right[node] = delete(right[node], key[min]);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Checks if key is in tree. O(logN)
+     */
+    public boolean contains(int k) {
+        int node = root;
+        while (node != NIL) {
+            int nodeKey = key[node];
+            if (k == nodeKey) {
+                return true;
+            }
+            node = k < nodeKey ? left[node] : right[node];
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest key. O(logN)
+     * @throws NoSuchElementException if tree is empty
+     */
+    public int first() {
+        if (root == NIL) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        int node = root;
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return key[node];
+    }
+
+    /**
+     * Returns the greatest key. O(logN)
+     * @throws NoSuchElementException if tree is empty
+     */
+    public int last() {
+        if (root == NIL) {
+            throw new NoSuchElementException("Tree is empty");
+        }
+        int node = root;
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return key[node];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Height of tree, 0 for empty tree. O(1)
+     */
+    public int height() {
+        return height[root];
+    }
+
+    /**
+     * Removes all keys, keeping allocated arrays. O(1)
+     */
+    public void clear() {
+        root = NIL;
+        size = 0;
+        allocated = 1;
+        freeHead = NIL;
+    }
+
+    /**
+     * Keys in ascending order. O(n)
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        PrimitiveIterator.OfInt iterator = iterator();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = iterator.nextInt();
+        }
+        return result;
+    }
+
+    /**
+     * Immutable snapshot of keys in Eytzinger layout for read-only phases. O(n)
+     * Later changes of tree are not visible in the index
+     */
+    public IntEytzingerIndex freeze() {
+        return new IntEytzingerIndex(toArray());
+    }
+
+    /**
+     * Applies action to keys in ascending order without boxing. O(n)
+     */
+    public void forEach(IntConsumer action) {
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            action.accept(iterator.nextInt());
+        }
+    }
+
+    /**
+     * Ascending iterator over keys, its stack is an int array sized from tree height
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final int[] stack = new int[height[root]];
+            private int top;
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(int node) {
+                while (node != NIL) {
+                    stack[top++] = node;
+                    node = left[node];
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (top == 0) {
+                    throw new NoSuchElementException();
+                }
+                int node = stack[--top];
+                pushLeft(right[node]);
+                return key[node];
+            }
+        };
+    }
+
+    private int allocate(int k) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left[node];
+        } else {
+            if (allocated == key.length) {
+                grow();
+            }
+            node = allocated++;
+        }
+        key[node] = k;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = freeHead;
+        right[node] = NIL;
+        freeHead = node;
+    }
+
+    private void grow() {
+        int length = key.length + (key.length >> 1);
+        if (length < 0 || length > Integer.MAX_VALUE - 8) {
+            length = Integer.MAX_VALUE - 8;
+            if (length == key.length) {
+                throw new IllegalStateException("Tree is full");
+            }
+        }
+        key = Arrays.copyOf(key, length);
+        left = Arrays.copyOf(left, length);
+        right = Arrays.copyOf(right, length);
+        height = Arrays.copyOf(height, length);
+    }
+
+    /**
+     * Balance node, same rules as in {@link AVLTree}. O(1)
+     */
+    private int balance(int node) {
+        update(node);
+        int balanceFactor = height[left[node]] - height[right[node]];
+        if (balanceFactor > 1) {
+            int l = left[node];
+            if (height[left[l]] < height[right[l]]) {
+                left[node] = rotateLeft(l);
+            }
+            return rotateRight(node);
+        }
+        if (balanceFactor < -1) {
+            int r = right[node];
+            if (height[right[r]] < height[left[r]]) {
+                right[node] = rotateRight(r);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private void update(int node) {
+        height[node] = (byte) (1 + Math.max(height[left[node]], height[right[node]]));
+    }
+
+    private int rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    private int rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        update(x);
+        update(y);
+        return y;
+    }
+}
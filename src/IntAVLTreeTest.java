@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+class IntAVLTreeTest {
+
+    @Test
+    void testMatchesTreeSet() {
+        IntAVLTree tree = new IntAVLTree(4);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), tree.delete(value));
+            } else {
+                assertEquals(expected.add(value), tree.insert(value));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), tree.toArray());
+        assertEquals(expected.first(), tree.first());
+        assertEquals(expected.last(), tree.last());
+        for (int i = -2600; i < 2600; i++) {
+            assertEquals(expected.contains(i), tree.contains(i));
+        }
+    }
+
+    @Test
+    void testSortedInsertStaysBalanced() {
+        IntAVLTree tree = new IntAVLTree();
+        for (int i = 0; i < 1 << 20; i++) {
+            tree.insert(i);
+        }
+        assertEquals(21, tree.height()); // Sorted inserts give a perfect tree: log2(n) + 1 levels
+        assertEquals(1 << 20, tree.size());
+    }
+
+    @Test
+    void testFreeListReusesNodes() {
+        IntAVLTree tree = new IntAVLTree(8);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 8; i++) {
+                tree.insert(round * 8 + i);
+            }
+            for (int i = 0; i < 8; i++) {
+                tree.delete(round * 8 + i);
+            }
+        }
+        assertTrue(tree.isEmpty());
+        tree.insert(1);
+        assertEquals(1, tree.first());
+    }
+
+    @Test
+    void testIteratorAndEmptyTree() {
+        IntAVLTree tree = new IntAVLTree();
+        assertFalse(tree.iterator().hasNext());
+        assertThrows(NoSuchElementException.class, () -> tree.iterator().nextInt());
+        assertThrows(NoSuchElementException.class, tree::first);
+
+        tree.insert(3);
+        tree.insert(1);
+        tree.insert(2);
+        PrimitiveIterator.OfInt iterator = tree.iterator();
+        assertEquals(1, iterator.nextInt());
+        assertEquals(2, iterator.nextInt());
+        assertEquals(3, iterator.nextInt());
+        assertFalse(iterator.hasNext());
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertFalse(tree.contains(1));
+    }
+
+    @Test
+    void testFreezeMatchesTreeSet() {
+        IntAVLTree tree = new IntAVLTree();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(41);
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(10_000) * 2 - 10_000; // Only even values, odd probes are absent
+            tree.insert(value);
+            expected.add(value);
+        }
+        IntEytzingerIndex index = tree.freeze();
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected.first(), index.first());
+        assertEquals(expected.last(), index.last());
+        for (int probe = -10_002; probe <= 10_002; probe++) {
+            assertEquals(expected.contains(probe), index.contains(probe));
+            Integer floor = expected.floor(probe);
+            Integer ceiling = expected.ceiling(probe);
+            assertEquals(floor == null ? -1 : floor, index.floor(probe).orElse(-1));
+            assertEquals(ceiling == null ? -1 : ceiling, index.ceiling(probe).orElse(-1));
+            assertEquals(expected.headSet(probe).size(), index.rank(probe));
+        }
+
+        IntEytzingerIndex empty = new IntAVLTree().freeze();
+        assertFalse(empty.contains(0));
+        assertFalse(empty.floor(0).isPresent());
+        assertEquals(0, empty.rank(5));
+        assertThrows(NoSuchElementException.class, empty::first);
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+
+/**
+ * Неизменяемый индекс int ключей в раскладке Эйтцингера, создаётся {@link IntAVLTree#freeze()}
+ * и {@link AVLTree#freeze(java.util.function.ToIntFunction)}.
+ * <p>
+ * Та же раскладка, что у {@link EytzingerIndex}, но ключи лежат прямо в int[]: сравнение - одна инструкция
+ * без Comparable и без перехода к объекту ключа, поэтому каждый уровень поиска - не больше одного промаха кэша,
+ * а первые уровни всех поисков делят несколько горячих кэш-линий.
+ * <p>
+ * Основные методы: {@link #contains(int)}, {@link #floor(int)}, {@link #ceiling(int)},
+ * {@link #rank(int)} - O(logN), {@link #size()} - O(1).
+ */
+public final class IntEytzingerIndex {
+    private final int[] keys; // keys[1..n] in Eytzinger order, keys[0] is unused
+    private final int[] ranks; // ranks[k] - position of keys[k] in ascending order
+    private final int size;
+
+    /**
+     * Builds index from ascending distinct keys. O(n)
+     */
+    IntEytzingerIndex(int[] sorted) {
+        this.size = sorted.length;
+        this.keys = new int[size + 1];
+        this.ranks = new int[size + 1];
+        fill(sorted, 0, 1);
+    }
+
+    /**
+     * In-order walk over implicit tree puts sorted keys to their slots
+     * @return number of keys placed so far
+     */
+    private int fill(int[] sorted, int placed, int k) {
+        if (k <= size) {
+            placed = fill(sorted, placed, 2 * k);
+            keys[k] = sorted[placed];
+            ranks[k] = placed++;
+            placed = fill(sorted, placed, 2 * k + 1);
+        }
+        return placed;
+    }
+
+    /**
+     * Checks if key is in index. O(logN)
+     */
+    public boolean contains(int key) {
+        int k = ceilingSlot(key);
+        return k != 0 && keys[k] == key;
+    }
+
+    /**
+     * Smallest key greater than or equal to key, empty if there is none. O(logN)
+     */
+    public OptionalInt ceiling(int key) {
+        int k = ceilingSlot(key);
+        return k == 0 ? OptionalInt.empty() : OptionalInt.of(keys[k]);
+    }
+
+    /**
+     * Greatest key less than or equal to key, empty if there is none. O(logN)
+     */
+    public OptionalInt floor(int key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (keys[k] <= key ? 1 : 0); // Right, if key is a floor candidate
+        }
+        k >>>= Integer.numberOfTrailingZeros(k) + 1; // Drop path after the last right turn
+        return k == 0 ? OptionalInt.empty() : OptionalInt.of(keys[k]);
+    }
+
+    /**
+     * Number of keys strictly less than key. O(logN)
+     */
+    public int rank(int key) {
+        int k = ceilingSlot(key);
+        return k == 0 ? size : ranks[k];
+    }
+
+    /**
+     * Returns the smallest key. O(logN)
+     * @throws NoSuchElementException if index is empty
+     */
+    public int first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Index is empty");
+        }
+        int k = 1;
+        while (2 * k <= size) {
+            k *= 2;
+        }
+        return keys[k];
+    }
+
+    /**
+     * Returns the greatest key. O(logN)
+     * @throws NoSuchElementException if index is empty
+     */
+    public int last() {
+        if (size == 0) {
+            throw new NoSuchElementException("Index is empty");
+        }
+        int k = 1;
+        while (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+        }
+        return keys[k];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Slot of the smallest key >= key, 0 if there is none
+     */
+    private int ceilingSlot(int key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (keys[k] < key ? 1 : 0); // Left, if key is a ceiling candidate
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1); // Drop path after the last left turn
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Objects;
+
+/**
+ * Закрытый интервал [start, end] для {@link IntervalAVLTree}.
+ * Интервалы упорядочены по началу, затем по концу.
+ * @param <P> тип концов интервала
+ */
+public final class Interval<P extends Comparable<P>> implements Comparable<Interval<P>> {
+    private final P start;
+    private final P end;
+
+    /**
+     * @throws IllegalArgumentException if start is greater than end
+     */
+    public Interval(P start, P end) {
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("Interval start " + start + " is greater than end " + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public P getStart() {
+        return start;
+    }
+
+    public P getEnd() {
+        return end;
+    }
+
+    /**
+     * Checks if interval has common points with [lo, hi]
+     */
+    public boolean overlaps(P lo, P hi) {
+        return start.compareTo(hi) <= 0 && lo.compareTo(end) <= 0;
+    }
+
+    /**
+     * Checks if point lies in interval
+     */
+    public boolean contains(P point) {
+        return overlaps(point, point);
+    }
+
+    @Override
+    public int compareTo(Interval<P> other) {
+        int cmp = start.compareTo(other.start);
+        return cmp != 0 ? cmp : end.compareTo(other.end);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Interval)) {
+            return false;
+        }
+        Interval<?> other = (Interval<?>) o;
+        return start.equals(other.start) && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + "]";
+    }
+}
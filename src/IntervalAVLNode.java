@@ -0,0 +1,24 @@
+/**
+ * Узел дерева интервалов с наибольшим концом интервалов своего поддерева
+ * @param <P> тип концов интервала
+ */
+class IntervalAVLNode<P extends Comparable<P>> extends AVLNode<Interval<P>> {
+    private P maxEnd;
+
+    /**
+     * Конструктор листа, наибольший конец - конец его интервала
+     * @param data интервал узла
+     */
+    IntervalAVLNode(Interval<P> data) {
+        super(data);
+        this.maxEnd = data.getEnd();
+    }
+
+    public P getMaxEnd() {
+        return maxEnd;
+    }
+
+    public void setMaxEnd(P maxEnd) {
+        this.maxEnd = maxEnd;
+    }
+}
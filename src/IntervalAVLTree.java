@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Дерево интервалов на основе AVLTree: интервалы упорядочены по началу,
+ * каждый узел хранит наибольший конец интервалов своего поддерева (пересчитывается в {@link #update(AVLNode)}
+ * при вставке, удалении, поворотах, join и split).
+ * <p>
+ * Поддерево пропускается, если его наибольший конец меньше начала запроса,
+ * правое поддерево - если начало узла больше конца запроса.
+ * <p>
+ * Основные методы:
+ * <ul>
+ *     <li>{@link #findAnyOverlap(Comparable, Comparable)} - Любой пересекающийся интервал, O(logN)</li>
+ *     <li>{@link #overlapping(Comparable, Comparable)}, {@link #stab(Comparable)} - Все пересечения,
+ *     O(min(n, (k + 1)logN)) для k найденных, на практике близко к O(logN + k)</li>
+ *     <li>{@link #forEachOverlapping(Comparable, Comparable, Predicate)}, {@link #forEachStabbing(Comparable, Predicate)} -
+ *     То же с остановкой по требованию посетителя</li>
+ * </ul>
+ * Одинаковые интервалы хранятся один раз, как и любые элементы AVLTree.
+ *
+ * @param <P> Тип концов интервалов
+ */
+public class IntervalAVLTree<P extends Comparable<P>> extends AVLTree<Interval<P>> {
+
+    /**
+     * Вставляет интервал [start, end]. O(logN)
+     */
+    public void insert(P start, P end) {
+        insert(new Interval<>(start, end));
+    }
+
+    /**
+     * Удаляет интервал [start, end]. O(logN)
+     */
+    public void delete(P start, P end) {
+        delete(new Interval<>(start, end));
+    }
+
+    /**
+     * Returns any interval, which overlaps [lo, hi], or null. O(logN)
+     * If left subtree reaches lo, it has an overlap or no interval of right subtree can overlap (CLRS interval search).
+     */
+    public Interval<P> findAnyOverlap(P lo, P hi) {
+        AVLNode<Interval<P>> node = getRoot();
+        while (node != null) {
+            if (node.data.overlaps(lo, hi)) {
+                return node.data;
+            }
+            AVLNode<Interval<P>> left = (AVLNode<Interval<P>>) node.Left;
+            if (left != null && maxEndOf(left).compareTo(lo) >= 0) {
+                node = left;
+            } else {
+                node = (AVLNode<Interval<P>>) node.Right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if some interval overlaps [lo, hi]. O(logN)
+     */
+    public boolean overlapsAny(P lo, P hi) {
+        return findAnyOverlap(lo, hi) != null;
+    }
+
+    /**
+     * All intervals, which overlap [lo, hi], ordered by start
+     */
+    public List<Interval<P>> overlapping(P lo, P hi) {
+        List<Interval<P>> result = new ArrayList<>();
+        forEachOverlapping(lo, hi, interval -> result.add(interval));
+        return result;
+    }
+
+    /**
+     * All intervals, which contain point, ordered by start
+     */
+    public List<Interval<P>> stab(P point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Visits intervals, which overlap [lo, hi], in order of start.
+     * Visitor returns false to stop the search, rest of tree is not touched then.
+     * @return true if all overlaps were visited, false if visitor stopped the search
+     */
+    public boolean forEachOverlapping(P lo, P hi, Predicate<? super Interval<P>> visitor) {
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("Query start " + lo + " is greater than end " + hi);
+        }
+        return visit(getRoot(), lo, hi, visitor);
+    }
+
+    /**
+     * Visits intervals, which contain point, until visitor returns false
+     * @return true if all such intervals were visited
+     */
+    public boolean forEachStabbing(P point, Predicate<? super Interval<P>> visitor) {
+        return forEachOverlapping(point, point, visitor);
+    }
+
+    private boolean visit(AVLNode<Interval<P>> node, P lo, P hi, Predicate<? super Interval<P>> visitor) {
+        if (node == null || maxEndOf(node).compareTo(lo) < 0) {
+            return true; // Every interval of subtree ends before lo
+        }
+        if (!visit((AVLNode<Interval<P>>) node.Left, lo, hi, visitor)) {
+            return false;
+        }
+        if (node.data.getStart().compareTo(hi) > 0) {
+            return true; // Node and right subtree start after hi
+        }
+        if (node.data.getEnd().compareTo(lo) >= 0 && !visitor.test(node.data)) {
+            return false;
+        }
+        return visit((AVLNode<Interval<P>>) node.Right, lo, hi, visitor);
+    }
+
+    @Override
+    protected AVLNode<Interval<P>> createNode(Interval<P> data) {
+        return new IntervalAVLNode<>(data);
+    }
+
+    @Override
+    protected AVLTree<Interval<P>> createEmpty() {
+        return new IntervalAVLTree<>();
+    }
+
+    /**
+     * Splits tree by interval, see {@link AVLTree#split(Object)}. O(logN)
+     */
+    @Override
+    public IntervalAVLTree<P> split(Interval<P> key) {
+        return (IntervalAVLTree<P>) super.split(key);
+    }
+
+    /**
+     * Updates height, size and the greatest end of node from its children. O(1)
+     */
+    @Override
+    protected void update(AVLNode<Interval<P>> node) {
+        super.update(node);
+        P maxEnd = node.data.getEnd();
+        if (node.Left != null && maxEndOf((AVLNode<Interval<P>>) node.Left).compareTo(maxEnd) > 0) {
+            maxEnd = maxEndOf((AVLNode<Interval<P>>) node.Left);
+        }
+        if (node.Right != null && maxEndOf((AVLNode<Interval<P>>) node.Right).compareTo(maxEnd) > 0) {
+            maxEnd = maxEndOf((AVLNode<Interval<P>>) node.Right);
+        }
+        ((IntervalAVLNode<P>) node).setMaxEnd(maxEnd);
+    }
+
+    private P maxEndOf(AVLNode<Interval<P>> node) {
+        return ((IntervalAVLNode<P>) node).getMaxEnd();
+    }
+}
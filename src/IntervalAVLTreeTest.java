@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class IntervalAVLTreeTest {
+
+    @Test
+    void testOverlapsMatchScan() {
+        IntervalAVLTree<Integer> tree = new IntervalAVLTree<>();
+        List<Interval<Integer>> all = new ArrayList<>();
+        Random random = new Random(39);
+        for (int i = 0; i < 3000; i++) {
+            int start = random.nextInt(10000);
+            Interval<Integer> interval = new Interval<>(start, start + random.nextInt(random.nextInt(8) == 0 ? 2000 : 50));
+            if (!all.contains(interval)) {
+                all.add(interval);
+                tree.insert(interval);
+            }
+        }
+        for (int i = 0; i < 1000; i++) { // Удаление перестраивает поддеревья, наибольшие концы должны обновиться
+            Interval<Integer> removed = all.remove(random.nextInt(all.size()));
+            tree.delete(removed.getStart(), removed.getEnd());
+        }
+        all.sort(null);
+        assertEquals(all.size(), tree.size());
+
+        for (int q = 0; q < 300; q++) {
+            int lo = random.nextInt(11000) - 500;
+            int hi = lo + random.nextInt(100);
+            List<Interval<Integer>> expected = new ArrayList<>();
+            for (Interval<Integer> interval : all) {
+                if (interval.overlaps(lo, hi)) {
+                    expected.add(interval);
+                }
+            }
+            assertEquals(expected, tree.overlapping(lo, hi));
+            assertEquals(!expected.isEmpty(), tree.overlapsAny(lo, hi));
+            Interval<Integer> any = tree.findAnyOverlap(lo, hi);
+            assertTrue(any == null ? expected.isEmpty() : any.overlaps(lo, hi));
+        }
+    }
+
+    @Test
+    void testStabbingStopsEarly() {
+        IntervalAVLTree<Integer> tree = new IntervalAVLTree<>();
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i, i + 10); // Точку 50 содержат [40, 50] ... [50, 60]
+        }
+        assertEquals(11, tree.stab(50).size());
+        assertEquals(new Interval<>(40, 50), tree.stab(50).get(0));
+
+        List<Interval<Integer>> seen = new ArrayList<>();
+        boolean completed = tree.forEachStabbing(50, interval -> {
+            seen.add(interval);
+            return seen.size() < 3;
+        });
+        assertFalse(completed);
+        assertEquals(List.of(new Interval<>(40, 50), new Interval<>(41, 51), new Interval<>(42, 52)), seen);
+        assertTrue(tree.forEachStabbing(500, interval -> false));
+        assertTrue(tree.stab(-1).isEmpty());
+    }
+
+    @Test
+    void testSplitKeepsMaxEnd() {
+        IntervalAVLTree<Integer> tree = new IntervalAVLTree<>();
+        tree.insert(0, 1000);
+        for (int i = 1; i < 200; i++) {
+            tree.insert(i, i + 1);
+        }
+        IntervalAVLTree<Integer> tail = tree.split(new Interval<>(100, 100));
+        assertEquals(List.of(new Interval<>(0, 1000)), tree.stab(500));
+        assertEquals(List.of(new Interval<>(150, 151), new Interval<>(151, 152)), tail.overlapping(151, 151));
+        assertTrue(tail.stab(500).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new Interval<>(5, 4));
+    }
+}
@@ -0,0 +1,40 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+class LongAVLTreeTest {
+
+    @Test
+    void testMatchesTreeSet() {
+        LongAVLTree tree = new LongAVLTree(4);
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(4);
+        for (int i = 0; i < 50_000; i++) {
+            long value = (random.nextInt(5000) - 2500) * 3_000_000_000L; // Outside of int range
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), tree.delete(value));
+            } else {
+                assertEquals(expected.add(value), tree.insert(value));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), tree.toArray());
+        assertEquals(expected.first(), tree.first());
+        assertEquals(expected.last(), tree.last());
+        for (long value : expected) {
+            assertTrue(tree.contains(value));
+            assertFalse(tree.contains(value + 1));
+        }
+    }
+
+    @Test
+    void testSortedInsertStaysBalanced() {
+        LongAVLTree tree = new LongAVLTree();
+        for (long i = 0; i < 1 << 16; i++) {
+            tree.insert(i << 32);
+        }
+        assertEquals(17, tree.height());
+    }
+}
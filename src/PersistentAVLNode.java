@@ -0,0 +1,34 @@
+/**
+ * Неизменяемый узел персистентного AVL дерева.
+ * Все поля final, поэтому узел безопасно читать из любого потока без синхронизации.
+ * @param <T> тип данных узла
+ */
+final class PersistentAVLNode<T> {
+    final T data;
+    final PersistentAVLNode<T> left;
+    final PersistentAVLNode<T> right;
+    final int height; // Высота листа равна 0
+    final int size; // Number of nodes in the subtree rooted at this node
+
+    /**
+     * Конструктор узла с потомками, высота и размер вычисляются по потомкам
+     * @param data данные узла
+     * @param left левый потомок или null
+     * @param right правый потомок или null
+     */
+    PersistentAVLNode(T data, PersistentAVLNode<T> left, PersistentAVLNode<T> right) {
+        this.data = data;
+        this.left = left;
+        this.right = right;
+        this.height = 1 + Math.max(heightOf(left), heightOf(right));
+        this.size = 1 + sizeOf(left) + sizeOf(right);
+    }
+
+    static int heightOf(PersistentAVLNode<?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    static int sizeOf(PersistentAVLNode<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
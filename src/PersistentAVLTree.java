@@ -0,0 +1,202 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Персистентное AVL дерево с копированием пути.
+ * <p>
+ * Узлы неизменяемы: вставка и удаление копируют только O(logN) узлов на пути от корня,
+ * остальные поддеревья разделяются между версиями. Текущая версия публикуется через volatile корень,
+ * поэтому чтение (поиск, итерация) не блокируется и всегда видит целостную версию,
+ * даже если в это время другой поток пишет.
+ * <p>
+ * Основные методы:
+ * <ul>
+ *     <li>{@link #insert(Comparable)}, {@link #delete(Comparable)} - Изменение, O(logN), писатели сериализуются</li>
+ *     <li>{@link #snapshot()} - Снимок текущей версии, O(1)</li>
+ *     <li>{@link #contains(Comparable)}, {@link #size()}, {@link #iterator()} - Чтение без блокировок</li>
+ * </ul>
+ *
+ * @param <T> Тип данных узла дерева, должен быть Comparable.
+ */
+public class PersistentAVLTree<T extends Comparable<T>> implements Iterable<T> {
+    private volatile PersistentAVLNode<T> root;
+
+    public PersistentAVLTree() {}
+
+    private PersistentAVLTree(PersistentAVLNode<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns snapshot of current version. O(1)
+     * Snapshot shares nodes with this tree, later writes to this tree and to the snapshot are independent.
+     */
+    public PersistentAVLTree<T> snapshot() {
+        return new PersistentAVLTree<>(root);
+    }
+
+    /**
+     * Вставляет элемент, копируя путь от корня. O(logN)
+     * @param data значение для вставки
+     */
+    public synchronized void insert(T data) {
+        root = insert(root, data);
+    }
+
+    private PersistentAVLNode<T> insert(PersistentAVLNode<T> node, T data) {
+        if (node == null) {
+            return new PersistentAVLNode<>(data, null, null);
+        }
+        int cmp = data.compareTo(node.data);
+        if (cmp < 0) {
+            PersistentAVLNode<T> left = insert(node.left, data);
+            return left == node.left ? node : balance(node.data, left, node.right);
+        } else if (cmp > 0) {
+            PersistentAVLNode<T> right = insert(node.right, data);
+            return right == node.right ? node : balance(node.data, node.left, right);
+        }
+        return node; // Дубликаты не добавляем, путь не копируется
+    }
+
+    /**
+     * Удаляет элемент, копируя путь от корня. O(logN)
+     * @param data значение для удаления
+     */
+    public synchronized void delete(T data) {
+        root = delete(root, data);
+    }
+
+    private PersistentAVLNode<T> delete(PersistentAVLNode<T> node, T data) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = data.compareTo(node.data);
+        if (cmp < 0) {
+            PersistentAVLNode<T> left = delete(node.left, data);
+            return left == node.left ? node : balance(node.data, left, node.right);
+        } else if (cmp > 0) {
+            PersistentAVLNode<T> right = delete(node.right, data);
+            return right == node.right ? node : balance(node.data, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        PersistentAVLNode<T> min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.data, node.left, removeMin(node.right));
+    }
+
+    private PersistentAVLNode<T> removeMin(PersistentAVLNode<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.data, removeMin(node.left), node.right);
+    }
+
+    /**
+     * Creates node from data and children, rotating if children heights differ by 2. O(1)
+     * Rotations create new nodes instead of relinking old ones.
+     */
+    private PersistentAVLNode<T> balance(T data, PersistentAVLNode<T> left, PersistentAVLNode<T> right) {
+        int hl = PersistentAVLNode.heightOf(left);
+        int hr = PersistentAVLNode.heightOf(right);
+        if (hl > hr + 1) {
+            if (PersistentAVLNode.heightOf(left.left) >= PersistentAVLNode.heightOf(left.right)) { // Правый поворот
+                return new PersistentAVLNode<>(left.data, left.left,
+                        new PersistentAVLNode<>(data, left.right, right));
+            }
+            PersistentAVLNode<T> lr = left.right; // Лево-правый поворот
+            return new PersistentAVLNode<>(lr.data,
+                    new PersistentAVLNode<>(left.data, left.left, lr.left),
+                    new PersistentAVLNode<>(data, lr.right, right));
+        }
+        if (hr > hl + 1) {
+            if (PersistentAVLNode.heightOf(right.right) >= PersistentAVLNode.heightOf(right.left)) { // Левый поворот
+                return new PersistentAVLNode<>(right.data,
+                        new PersistentAVLNode<>(data, left, right.left), right.right);
+            }
+            PersistentAVLNode<T> rl = right.left; // Право-левый поворот
+            return new PersistentAVLNode<>(rl.data,
+                    new PersistentAVLNode<>(data, left, rl.left),
+                    new PersistentAVLNode<>(right.data, rl.right, right.right));
+        }
+        return new PersistentAVLNode<>(data, left, right);
+    }
+
+    /**
+     * Checks if element is in current version. O(logN), lock-free
+     */
+    public boolean contains(T data) {
+        PersistentAVLNode<T> node = root;
+        while (node != null) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns number of elements in current version. O(1)
+     */
+    public int size() {
+        return PersistentAVLNode.sizeOf(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Ascending iterator over the version, which was current when the iterator was created.
+     * Concurrent writes never affect it.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new PersistentAVLIterator<>(root);
+    }
+
+    /**
+     * In-order iterator with array stack, sized from the height of the version
+     */
+    private static class PersistentAVLIterator<T> implements Iterator<T> {
+        private final Object[] stack;
+        private int top;
+
+        PersistentAVLIterator(PersistentAVLNode<T> root) {
+            stack = new Object[PersistentAVLNode.heightOf(root) + 1];
+            pushLeft(root);
+        }
+
+        private void pushLeft(PersistentAVLNode<T> node) {
+            while (node != null) {
+                stack[top++] = node;
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (top == 0) {
+                throw new NoSuchElementException();
+            }
+            PersistentAVLNode<T> node = (PersistentAVLNode<T>) stack[--top];
+            stack[top] = null;
+            pushLeft(node.right);
+            return node.data;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+class PersistentAVLTreeTest {
+
+    @Test
+    void testInsertDeleteMatchTreeSet() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                tree.delete(value);
+                expected.remove(value);
+            } else {
+                tree.insert(value);
+                expected.add(value);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertIterableEquals(new ArrayList<>(expected), tree);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(expected.contains(i), tree.contains(i));
+        }
+    }
+
+    @Test
+    void testSnapshotIsIsolated() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 10; i++) {
+            tree.insert(i);
+        }
+        PersistentAVLTree<Integer> snapshot = tree.snapshot();
+        tree.delete(3);
+        tree.insert(42);
+        snapshot.insert(-1);
+
+        assertEquals(List.of(-1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9), toList(snapshot));
+        assertEquals(List.of(0, 1, 2, 4, 5, 6, 7, 8, 9, 42), toList(tree));
+    }
+
+    @Test
+    void testIteratorIsStableUnderWrites() {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i);
+        }
+        List<Integer> seen = new ArrayList<>();
+        for (int value : tree) {
+            seen.add(value);
+            tree.delete(value + 1); // Writes during iteration do not affect the iterated version
+            tree.insert(1000 + value);
+        }
+        assertEquals(100, seen.size());
+        assertEquals(99, seen.get(99));
+    }
+
+    @Test
+    void testReadersSeeConsistentVersionsUnderConcurrentWrites() throws InterruptedException {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                tree.insert(i);
+                if (i % 3 == 0) {
+                    tree.delete(i / 2);
+                }
+            }
+        });
+        Thread reader = new Thread(() -> {
+            while (writer.isAlive()) {
+                PersistentAVLTree<Integer> snapshot = tree.snapshot();
+                int count = 0;
+                Integer previous = null;
+                for (int value : snapshot) {
+                    if (previous != null && previous >= value) {
+                        failure.set("Order broken: " + previous + " >= " + value);
+                    }
+                    previous = value;
+                    count++;
+                }
+                if (count != snapshot.size()) {
+                    failure.set("Size " + snapshot.size() + " but iterated " + count);
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertNull(failure.get());
+    }
+
+    private static List<Integer> toList(PersistentAVLTree<Integer> tree) {
+        List<Integer> values = new ArrayList<>();
+        tree.forEach(values::add);
+        return values;
+    }
+}
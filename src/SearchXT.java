@@ -1,24 +1,108 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 // Провести замеры и сделать time plot
 
 /**
  * Класс бинарного дерева поиска, основанный на XTree
- * @param <T> тип данных узла, который должен быть Comparable
+ * Без балансировки глубина зависит от порядка вставки, с {@link Balancing#TREAP} ожидаемо O(log n) при любом порядке,
+ * с {@link Balancing#SPLAY} амортизированно O(log n) и недавно запрошенные ключи находятся быстрее.
+ * @param <T> тип данных узла, Comparable или упорядоченный переданным Comparator
  */
-public class SearchXT<T extends Comparable<T>> extends XTree<T> {
+public class SearchXT<T> extends XTree<T> {
+    private final Comparator<? super T> comparator; // null - естественный порядок, T должен быть Comparable
+    private final Balancing balancing;
+
+    /**
+     * Стратегия балансировки дерева
+     */
+    public enum Balancing {
+        /** Обычное BST: O(log n) на случайных данных, O(n) на упорядоченных */
+        NONE,
+        /** Декартово дерево со случайными приоритетами: ожидаемо O(log n) при любом порядке вставки */
+        TREAP,
+        /**
+         * Splay-дерево: search, insert и delete поднимают найденный узел в корень нисходящим (top-down) splay без рекурсии.
+         * Амортизированно O(log n), часто запрашиваемые ключи остаются у корня
+         */
+        SPLAY
+    }
+
+    private final Joint<T> splayHeader = new Joint<>(null); // Временный узел сборки левого и правого деревьев при splay
+
     /**
-     * Extends Comparable<T> — это ограничение, указывающее, что тип T должен реализовывать интерфейс Comparable<T>.
-     * То есть любой класс, который будет использоваться в качестве типа T, обязан иметь метод сравнения для корректной работы с элементами.
+     * Без Comparator тип T должен реализовывать интерфейс Comparable<T>.
      * В бинарном дереве поиска это необходимо для сравнения элементов (меньше, больше или равно).
      */
     public SearchXT() {
-        super(); // Вызов конструктора родительского класса
+        this(null, Balancing.NONE);
     }
 
     public SearchXT(T data) {
         super(data);
+        this.comparator = null;
+        this.balancing = Balancing.NONE;
+    }
+
+    /**
+     * Дерево с естественным порядком и заданной балансировкой
+     * @param balancing стратегия балансировки
+     */
+    public SearchXT(Balancing balancing) {
+        this(null, balancing);
+    }
+
+    /**
+     * Дерево с заданным порядком элементов, для записей без Comparable или с другим порядком
+     * @param comparator порядок элементов, null - естественный порядок
+     */
+    public SearchXT(Comparator<? super T> comparator) {
+        this(comparator, Balancing.NONE);
+    }
+
+    /**
+     * @param comparator порядок элементов, null - естественный порядок
+     * @param balancing стратегия балансировки
+     */
+    public SearchXT(Comparator<? super T> comparator, Balancing balancing) {
+        super(); // Вызов конструктора родительского класса
+        this.comparator = comparator;
+        this.balancing = balancing;
+    }
+
+    /**
+     * Дерево, упорядоченное по int ключу записей, например {@code SearchXT.byIntKey(bulb -> bulb.P)}.
+     * Ключи сравниваются как примитивы, без обёрток
+     */
+    public static <T> SearchXT<T> byIntKey(ToIntFunction<? super T> key) {
+        return new SearchXT<>(Comparator.comparingInt(key));
+    }
+
+    /**
+     * Дерево, упорядоченное по long ключу записей
+     */
+    public static <T> SearchXT<T> byLongKey(ToLongFunction<? super T> key) {
+        return new SearchXT<>(Comparator.comparingLong(key));
+    }
+
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    public Balancing getBalancing() {
+        return balancing;
+    }
+
+    // Сравнение в порядке дерева, естественный порядок вызывает compareTo напрямую
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        return comparator == null ? ((Comparable<? super T>) a).compareTo(b) : comparator.compare(a, b);
     }
 
     /**
@@ -28,23 +112,39 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
      * @param data данные, которые нужно вставить
      */
     public void insert(T data) {
-        setRoot(insertRec(getRoot(), data));
+        if (balancing == Balancing.TREAP) {
+            treapInsert(data);
+        } else if (balancing == Balancing.SPLAY) {
+            splayInsert(data);
+        } else {
+            plainInsert(data);
+        }
     }
 
-    // Рекурсивный метод вставки в бинарное дерево поиска
+    // Итеративная вставка в бинарное дерево поиска: спуск до места вставки, глубина дерева не ограничена стеком
     // O(log n) в среднем случае, O(n) в худшем (несбалансированное дерево)
-    private Joint<T> insertRec(Joint<T> node, T data) {
+    private void plainInsert(T data) {
+        Joint<T> node = getRoot();
         if (node == null) {
-            return new Joint<>(data); // Created new object, so using <>
+            setRoot(new Joint<>(data)); // Created new object, so using <>
+            return;
         }
-
-        if (data.compareTo(node.data) < 0) {
-            node.Left = insertRec(node.Left, data);
-        } else if (data.compareTo(node.data) > 0) {
-            node.Right = insertRec(node.Right, data);
+        while (true) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                return; // Дубликаты не добавляем
+            }
+            Joint<T> next = cmp < 0 ? node.Left : node.Right;
+            if (next == null) {
+                if (cmp < 0) {
+                    node.Left = new Joint<>(data);
+                } else {
+                    node.Right = new Joint<>(data);
+                }
+                return;
+            }
+            node = next;
         }
-
-        return node;
     }
 
     /**
@@ -54,67 +154,256 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
      * @return true если элемент найден, иначе false
      */
     public boolean search(T data) {
-        return searchRec(getRoot(), data);
+        if (balancing == Balancing.SPLAY) { // Поиск меняет форму дерева: найденный или последний узел пути становится корнем
+            setRoot(splay(getRoot(), data));
+            return getRoot() != null && compare(data, getRoot().data) == 0;
+        }
+        return searchNode(getRoot(), data) != null;
     }
 
-    // Рекурсивный метод для поиска
+    /**
+     * Удаление элемента из дерева
+     * O(log n) в среднем случае, O(n) в худшем.
+     * @param data данные для удаления
+     */
+    public void delete(T data) {
+        if (balancing == Balancing.TREAP) {
+            treapDelete(data);
+        } else if (balancing == Balancing.SPLAY) {
+            splayDelete(data);
+        } else {
+            plainDelete(data);
+        }
+    }
+
+    // Итеративное удаление: поиск узла вместе с родителем
     // O(log n) в среднем случае, O(n) в худшем
-    private boolean searchRec(Joint<T> node, T data) {
+    private void plainDelete(T data) {
+        Joint<T> parent = null;
+        Joint<T> node = getRoot();
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                break;
+            }
+            parent = node;
+            node = cmp < 0 ? node.Left : node.Right;
+        }
         if (node == null) {
-            return false;
+            return; // Узел не найден
+        }
+        // Узел найден, есть три случая: без потомков или только с одним - его место занимает потомок
+        if (node.Left == null || node.Right == null) {
+            replaceChild(parent, node, node.Left != null ? node.Left : node.Right);
+            return;
         }
+        // когда оба есть
+        // Найти минимальный элемент в правом поддереве, перенести его данные и вырезать его (у него нет левого потомка)
+        Joint<T> minParent = node;
+        Joint<T> min = node.Right;
+        while (min.Left != null) {
+            minParent = min;
+            min = min.Left;
+        }
+        node.data = min.data;
+        if (minParent == node) {
+            node.Right = min.Right;
+        } else {
+            minParent.Left = min.Right;
+        }
+    }
 
-        if (data.compareTo(node.data) == 0) {
-            return true;
+    // Вставка в декартово дерево: как в BST, затем узел поднимается поворотами, пока его приоритет больше родительского
+    // Путь от корня хранится в массиве вместо стека вызовов. Ожидаемая глубина O(log n) при любом порядке вставки
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void treapInsert(T data) {
+        Joint<T>[] path = (Joint<T>[]) new Joint[32];
+        int depth = 0;
+        Joint<T> node = getRoot();
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                return; // Дубликаты не добавляем
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = node;
+            node = cmp < 0 ? node.Left : node.Right;
+        }
+        Joint<T> inserted = new TreapJoint<>(data, ThreadLocalRandom.current().nextInt());
+        if (depth == 0) {
+            setRoot(inserted);
+            return;
+        }
+        Joint<T> parent = path[depth - 1];
+        if (compare(data, parent.data) < 0) {
+            parent.Left = inserted;
+        } else {
+            parent.Right = inserted;
+        }
+        for (int i = depth - 1; i >= 0 && priority(inserted) > priority(path[i]); i--) {
+            parent = path[i];
+            Joint<T> top = parent.Left == inserted ? rotateRight(parent) : rotateLeft(parent);
+            replaceChild(i > 0 ? path[i - 1] : null, parent, top);
+        }
+    }
+
+    // Удаление из декартова дерева: узел опускается поворотами в сторону потомка с большим приоритетом,
+    // пока у него не останется одного потомка
+    private void treapDelete(T data) {
+        Joint<T> parent = null;
+        Joint<T> node = getRoot();
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                break;
+            }
+            parent = node;
+            node = cmp < 0 ? node.Left : node.Right;
+        }
+        if (node == null) {
+            return;
+        }
+        while (node.Left != null && node.Right != null) {
+            Joint<T> top = priority(node.Left) > priority(node.Right) ? rotateRight(node) : rotateLeft(node);
+            replaceChild(parent, node, top);
+            parent = top;
         }
+        replaceChild(parent, node, node.Left != null ? node.Left : node.Right);
+    }
 
-        if (data.compareTo(node.data) < 0) {
-            return searchRec(node.Left, data);
+    // Ставит replacement на место потомка child у parent, parent == null - child был корнем
+    private void replaceChild(Joint<T> parent, Joint<T> child, Joint<T> replacement) {
+        if (parent == null) {
+            setRoot(replacement);
+        } else if (parent.Left == child) {
+            parent.Left = replacement;
         } else {
-            return searchRec(node.Right, data);
+            parent.Right = replacement;
         }
     }
 
     /**
-     * Удаление элемента из дерева
-     * O(log n) в среднем случае, O(n) в худшем.
-     * @param data данные для удаления
+     * Нисходящий splay (Sleator, Tarjan): за один проход сверху вниз узлы пути раскладываются в левое (меньше data)
+     * и правое (больше data) деревья, пары шагов в одну сторону поворачиваются (zig-zig).
+     * В конце найденный узел, или последний на пути, становится корнем, левое и правое деревья - его потомками.
+     * Амортизированно O(log n), без рекурсии и без ссылок на родителя.
+     * @param node корень поддерева
+     * @param data ключ
+     * @return новый корень поддерева
      */
-    public void delete(T data) {
-        setRoot(deleteRec(getRoot(), data));
+    private Joint<T> splay(Joint<T> node, T data) {
+        if (node == null) {
+            return null;
+        }
+        Joint<T> header = splayHeader;
+        header.Left = null;
+        header.Right = null;
+        Joint<T> left = header; // Наибольший узел левого дерева, header.Right - его корень
+        Joint<T> right = header; // Наименьший узел правого дерева, header.Left - его корень
+        while (true) {
+            int cmp = compare(data, node.data);
+            if (cmp < 0) {
+                if (node.Left == null) {
+                    break;
+                }
+                if (compare(data, node.Left.data) < 0) { // zig-zig: поворот направо
+                    node = rotateRight(node);
+                    if (node.Left == null) {
+                        break;
+                    }
+                }
+                right.Left = node; // Узел и его правое поддерево больше data
+                right = node;
+                node = node.Left;
+            } else if (cmp > 0) {
+                if (node.Right == null) {
+                    break;
+                }
+                if (compare(data, node.Right.data) > 0) { // zig-zig: поворот налево
+                    node = rotateLeft(node);
+                    if (node.Right == null) {
+                        break;
+                    }
+                }
+                left.Right = node; // Узел и его левое поддерево меньше data
+                left = node;
+                node = node.Right;
+            } else {
+                break;
+            }
+        }
+        left.Right = node.Left;
+        right.Left = node.Right;
+        node.Left = header.Right;
+        node.Right = header.Left;
+        header.Left = null; // Не держим ссылки на узлы между операциями
+        header.Right = null;
+        return node;
     }
 
-    // Рекурсивный метод для удаления
-    // O(log n) в среднем случае, O(n) в худшем
-    private Joint<T> deleteRec(Joint<T> node, T data) {
+    // Вставка в splay-дерево: после splay корень - сосед data, новый узел становится корнем между двумя частями
+    private void splayInsert(T data) {
+        Joint<T> node = splay(getRoot(), data);
         if (node == null) {
-            return null;
+            setRoot(new Joint<>(data));
+            return;
         }
-        // LNR
-        if (data.compareTo(node.data) < 0) {
-            node.Left = deleteRec(node.Left, data);
-        } else if (data.compareTo(node.data) > 0) {
-            node.Right = deleteRec(node.Right, data);
+        int cmp = compare(data, node.data);
+        if (cmp == 0) {
+            setRoot(node); // Дубликаты не добавляем
+            return;
+        }
+        Joint<T> newRoot = new Joint<>(data);
+        if (cmp < 0) {
+            newRoot.Left = node.Left;
+            newRoot.Right = node;
+            node.Left = null;
         } else {
-            // Узел найден, есть три случая
-            // без листьев
-            if (node.Left == null && node.Right == null) {
-                return null;
-            }
-            // только с правым
-            if (node.Left == null) {
-                return node.Right;
-                // только с левым
-            } else if (node.Right == null) {
-                return node.Left;
-            }
-            // когда оба есть
-            // Найти минимальный элемент в правом поддереве
-            node.data = findMinRec(node.Right).data;
-            node.Right = deleteRec(node.Right, node.data);
+            newRoot.Right = node.Right;
+            newRoot.Left = node;
+            node.Right = null;
+        }
+        setRoot(newRoot);
+    }
+
+    // Удаление из splay-дерева: удаляемый узел поднимается в корень, затем наибольший узел левой части
+    // поднимается вторым splay и забирает правую часть
+    private void splayDelete(T data) {
+        Joint<T> node = splay(getRoot(), data);
+        if (node == null || compare(data, node.data) != 0) {
+            setRoot(node);
+            return;
         }
+        if (node.Left == null) {
+            setRoot(node.Right);
+        } else {
+            Joint<T> newRoot = splay(node.Left, data); // data больше всех ключей левой части, поднимется максимум
+            newRoot.Right = node.Right;
+            setRoot(newRoot);
+        }
+    }
 
-        return node;
+    // Приоритет узла, узлы без приоритета (например, заданные через setRoot) считаются самыми низкими
+    private static <T> int priority(Joint<T> node) {
+        return node instanceof TreapJoint ? ((TreapJoint<T>) node).priority : Integer.MIN_VALUE;
+    }
+
+    // Правый поворот, O(1)
+    private static <T> Joint<T> rotateRight(Joint<T> y) {
+        Joint<T> x = y.Left;
+        y.Left = x.Right;
+        x.Right = y;
+        return x;
+    }
+
+    // Левый поворот, O(1)
+    private static <T> Joint<T> rotateLeft(Joint<T> x) {
+        Joint<T> y = x.Right;
+        x.Right = y.Left;
+        y.Left = x;
+        return y;
     }
 
     /**
@@ -127,18 +416,18 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
         if (root == null) {
             return null;
         }
-        return findMinRec(root).data;
+        return findMinNode(root).data;
     }
 
     /**
-     * Рекурсивный метод поиска наименьшего узла в дереве
+     * Поиск наименьшего узла поддерева спуском влево
      * O(log n) в среднем случае, O(n) в худшем.
      * @param node узел, от которого ведётся поиск
      * @return наименьший узел
      */
-    private Joint<T> findMinRec(Joint<T> node) {
-        if (node.Left != null) {
-            return findMinRec(node.Left);
+    private Joint<T> findMinNode(Joint<T> node) {
+        while (node.Left != null) {
+            node = node.Left;
         }
         return node;
     }
@@ -153,18 +442,18 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
         if (root == null) {
             return null;
         }
-        return findMaxRec(root).data;
+        return findMaxNode(root).data;
     }
 
     /**
-     * Рекурсивный метод поиска наибольшего узла
+     * Поиск наибольшего узла поддерева спуском вправо
      * O(log n) в среднем случае, O(n) в худшем.
      * @param node узел, от которого идёт поиск
      * @return наибольший узел
      */
-    private Joint<T> findMaxRec(Joint<T> node) {
-        if (node.Right != null) {
-            return findMaxRec(node.Right);
+    private Joint<T> findMaxNode(Joint<T> node) {
+        while (node.Right != null) {
+            node = node.Right;
         }
         return node;
     }
@@ -175,7 +464,11 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
      * @return список элементов дерева в отсортированном порядке
      */
     public List<T> inOrderTraversal() {
-        return traverseLNR(getRoot());
+        List<T> result = new ArrayList<>();
+        for (T item : this) { // Итератор XTree обходит LNR со своим стеком, без рекурсии
+            result.add(item);
+        }
+        return result;
     }
 
     /**
@@ -194,14 +487,14 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
 
         // Случай 1: Если есть правый потомок, найти минимальный узел в правом поддереве
         if (target.Right != null) {
-            return findMinRec(target.Right).data;
+            return findMinNode(target.Right).data;
         }
 
         // Случай 2: Если правого потомка нет, поднимаемся
         Joint<T> successor = null;
         Joint<T> ancestor = getRoot();
         while (ancestor != target) {
-            if (data.compareTo(ancestor.data) < 0) {
+            if (compare(data, ancestor.data) < 0) {
                 successor = ancestor;  // Потенциальный правопреемник
                 ancestor = ancestor.Left;
             } else {
@@ -213,31 +506,180 @@ public class SearchXT<T extends Comparable<T>> extends XTree<T> {
     }
 
     /**
-     * Рекурсивный метод для поиска узла по данным
+     * Поиск узла по данным спуском от корня поддерева
      * O(log n) в среднем случае, O(n) в худшем.
      * @param node корень поддерева
      * @param data данные для поиска
      * @return узел с заданными данными или null, если узел не найден
      */
     private Joint<T> searchNode(Joint<T> node, T data) {
-        if (node == null || data.compareTo(node.data) == 0) {
-            return node;
-        }
-        if (data.compareTo(node.data) < 0) {
-            return searchNode(node.Left, data);
-        } else {
-            return searchNode(node.Right, data);
+        while (node != null) {
+            int cmp = compare(data, node.data);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.Left : node.Right;
         }
+        return null;
     }
 
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13; // Меньшие массивы Arrays.parallelSort всё равно сортирует последовательно
+
     /**
-     * Помещает данные из массива в дерево
-     * @param arr
+     * Помещает данные из массива в дерево.
+     * Массив сортируется (параллельно для больших массивов), дубликаты отбрасываются.
+     * Пустое дерево строится сразу сбалансированным за O(n) после сортировки, даже из отсортированного входа.
+     * В непустое дерево небольшой пакет (k * log n < n) вставляется поэлементно, большой - слиянием и перестройкой
+     * (см. {@link #putArray(ArrayList, boolean)}), во всех режимах балансировки.
+     * O(k log k) на сортировку, затем O(n + k) при слиянии или O(k * h) при поэлементной вставке
+     * (h - высота дерева, в NONE без балансировки она может расти)
+     * @param arr данные для вставки
      */
     public void putArray(ArrayList<T> arr) {
-        for (T i : arr) {
-            this.insert(i);
+        T[] batch = sortedDistinct(arr);
+        // log n <= 32, поэтому узлы считаются только до 32k + 1: выбор стоит O(k), а не O(n)
+        long limit = 32L * batch.length + 1;
+        int n = countNodesUpTo(limit);
+        boolean merge = n < limit && (long) batch.length * (32 - Integer.numberOfLeadingZeros(n)) >= n;
+        putSorted(batch, merge);
+    }
+
+    // Число узлов, но не больше limit: обход со стеком без рекурсии прерывается на limit узлах
+    private int countNodesUpTo(long limit) {
+        Joint<T> root = getRoot();
+        if (root == null) {
+            return 0;
+        }
+        int count = 0;
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty() && count < limit) {
+            Joint<T> node = stack.pop();
+            count++;
+            if (node.Left != null) {
+                stack.push(node.Left);
+            }
+            if (node.Right != null) {
+                stack.push(node.Right);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Помещает данные из массива в дерево выбранным способом.
+     * При merge = true дерево разворачивается в отсортированный массив, сливается с отсортированным пакетом
+     * и перестраивается сбалансированным: O(n + k) после сортировки, форма не зависит от порядка вставок.
+     * При merge = false отсортированный пакет вставляется поэлементно: O(k log n) в TREAP и SPLAY.
+     * При равенстве остаётся элемент, уже лежащий в дереве.
+     * @param arr данные для вставки
+     * @param merge true - слияние и перестройка, false - поэлементная вставка
+     */
+    public void putArray(ArrayList<T> arr, boolean merge) {
+        putSorted(sortedDistinct(arr), merge);
+    }
+
+    private void putSorted(T[] batch, boolean merge) {
+        if (batch.length == 0) {
+            return;
+        }
+        if (!merge) {
+            for (T data : batch) {
+                insert(data);
+            }
+            return;
+        }
+        T[] merged = getRoot() == null ? batch : mergeSorted(flatten(), batch);
+        setRoot(balancing == Balancing.TREAP ? buildTreap(merged) : buildBalanced(merged, 0, merged.length));
+    }
+
+    // Копия в порядке дерева без повторов, O(k log k)
+    @SuppressWarnings("unchecked")
+    private T[] sortedDistinct(ArrayList<T> arr) {
+        T[] sorted = (T[]) arr.toArray();
+        Comparator<T> order = this::compare;
+        if (sorted.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(sorted, order);
+        } else {
+            Arrays.sort(sorted, order);
+        }
+        int distinct = 0;
+        for (T data : sorted) {
+            if (distinct == 0 || compare(sorted[distinct - 1], data) != 0) {
+                sorted[distinct++] = data;
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+
+    // Элементы дерева по возрастанию, O(n)
+    @SuppressWarnings("unchecked")
+    private T[] flatten() {
+        T[] result = (T[]) new Object[countNodes()];
+        int i = 0;
+        for (T data : this) {
+            result[i++] = data;
+        }
+        return result;
+    }
+
+    // Слияние двух отсортированных массивов без повторов, при равенстве берётся элемент дерева. O(n + k)
+    @SuppressWarnings("unchecked")
+    private T[] mergeSorted(T[] tree, T[] batch) {
+        T[] result = (T[]) new Object[tree.length + batch.length];
+        int i = 0, j = 0, k = 0;
+        while (i < tree.length && j < batch.length) {
+            int cmp = compare(tree[i], batch[j]);
+            if (cmp <= 0) {
+                result[k++] = tree[i++];
+                if (cmp == 0) {
+                    j++;
+                }
+            } else {
+                result[k++] = batch[j++];
+            }
+        }
+        while (i < tree.length) {
+            result[k++] = tree[i++];
+        }
+        while (j < batch.length) {
+            result[k++] = batch[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    // Идеально сбалансированное дерево из отсортированного отрезка [from, to): корень - середина, глубина рекурсии O(log n)
+    private static <T> Joint<T> buildBalanced(T[] sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Joint<T> node = new Joint<>(sorted[mid]);
+        node.Left = buildBalanced(sorted, from, mid);
+        node.Right = buildBalanced(sorted, mid + 1, to);
+        return node;
+    }
+
+    // Декартово дерево из отсортированных ключей со случайными приоритетами за O(n):
+    // стек хранит правую ветвь, каждый узел кладётся и снимается не больше одного раза
+    private static <T> Joint<T> buildTreap(T[] sorted) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TreapJoint<T>[] spine = new TreapJoint[sorted.length];
+        int top = 0;
+        for (T data : sorted) {
+            TreapJoint<T> node = new TreapJoint<>(data, random.nextInt());
+            TreapJoint<T> last = null;
+            while (top > 0 && spine[top - 1].priority < node.priority) {
+                last = spine[--top];
+            }
+            node.Left = last; // Снятая часть ветви меньше по ключу и по приоритету
+            if (top > 0) {
+                spine[top - 1].Right = node;
+            }
+            spine[top++] = node;
         }
+        return spine[0];
     }
 
 }
@@ -0,0 +1,298 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class SearchXTTest {
+
+    @Test
+    void testNaturalOrder() {
+        SearchXT<Integer> tree = new SearchXT<>();
+        tree.putArray(new ArrayList<>(List.of(50, 30, 70, 20, 40, 60, 80)));
+        assertEquals(List.of(20, 30, 40, 50, 60, 70, 80), tree.inOrderTraversal());
+        assertTrue(tree.search(60));
+        assertFalse(tree.search(65));
+        assertEquals(60, tree.findSuccessor(50));
+        tree.delete(50);
+        assertEquals(List.of(20, 30, 40, 60, 70, 80), tree.inOrderTraversal());
+        assertEquals(20, tree.findMin());
+        assertEquals(80, tree.findMax());
+    }
+
+    @Test
+    void testKeyExtractorAndComparator() {
+        SearchXT<Bulb> bulbs = SearchXT.byIntKey(bulb -> bulb.P);
+        for (int power : new int[]{60, 40, 100, 25}) {
+            bulbs.insert(new Bulb(power));
+        }
+        assertTrue(bulbs.search(new Bulb(40)));
+        assertEquals(25, bulbs.findMin().P);
+        assertEquals(60, bulbs.findSuccessor(new Bulb(40)).P);
+        bulbs.delete(new Bulb(25));
+        assertEquals(40, bulbs.findMin().P);
+
+        SearchXT<Long> descending = new SearchXT<>(Comparator.reverseOrder());
+        descending.putArray(new ArrayList<>(List.of(1L, 3L, 2L)));
+        assertEquals(List.of(3L, 2L, 1L), descending.inOrderTraversal());
+    }
+
+    @Test
+    void testTreapStaysShallowOnSortedInput() {
+        SearchXT<Integer> tree = new SearchXT<>(SearchXT.Balancing.TREAP);
+        for (int i = 0; i < 20000; i++) {
+            tree.insert(i); // Без балансировки глубина была бы 19999
+        }
+        assertTrue(tree.treeDepth() < 80, "Depth " + tree.treeDepth());
+        assertEquals(20000, tree.countNodes());
+        for (int i = 0; i < 20000; i += 2) {
+            tree.delete(i);
+        }
+        assertEquals(10000, tree.countNodes());
+        assertTrue(tree.search(1));
+        assertFalse(tree.search(2));
+        assertEquals(1, tree.findMin());
+        assertEquals(19999, tree.findMax());
+        assertEquals(5, tree.findSuccessor(3));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i < 20000; i += 2) {
+            expected.add(i);
+        }
+        assertEquals(expected, tree.inOrderTraversal());
+        assertTrue(tree.treeDepth() < 80);
+    }
+
+    @Test
+    void testSplayMatchesTreeSet() {
+        SearchXT<Integer> tree = new SearchXT<>(SearchXT.Balancing.SPLAY);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(47);
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    tree.delete(value);
+                    expected.remove(value);
+                }
+                case 1 -> {
+                    tree.insert(value);
+                    expected.add(value);
+                }
+                default -> assertEquals(expected.contains(value), tree.search(value));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), tree.inOrderTraversal());
+        assertEquals(expected.size(), tree.countNodes());
+    }
+
+    @Test
+    void testSplayMovesAccessedKeyToRoot() {
+        SearchXT<Integer> tree = new SearchXT<>(SearchXT.Balancing.SPLAY);
+        for (int i = 0; i < 50000; i++) {
+            tree.insert(i); // Последовательная вставка без рекурсии, дерево вырождается в путь
+        }
+        assertEquals(49999, tree.getRoot().data);
+        assertTrue(tree.search(0)); // Глубокий поиск без StackOverflowError, путь укорачивается вдвое
+        assertEquals(0, tree.getRoot().data);
+        assertTrue(tree.search(777));
+        assertEquals(777, tree.getRoot().data);
+        assertFalse(tree.search(-5));
+        assertEquals(0, tree.getRoot().data); // Последний узел пути
+
+        tree.delete(0);
+        assertFalse(tree.search(0));
+        tree.insert(-1);
+        assertEquals(-1, tree.getRoot().data);
+        assertEquals(-1, tree.findMin());
+        assertEquals(50000, tree.countNodes());
+    }
+
+    @Test
+    void testDegenerateTreeWithoutRecursion() {
+        int n = 100_000;
+        SearchXT<Integer> tree = new SearchXT<>();
+        for (int i = 0; i < n; i++) {
+            tree.insert(i); // Отсортированный вход без балансировки: дерево - путь глубины n - 1
+        }
+        assertEquals(n, tree.countNodes());
+        assertEquals(n - 1, tree.treeDepth());
+        assertTrue(tree.search(n - 1));
+        assertFalse(tree.search(n));
+        assertEquals(0, tree.findMin());
+        assertEquals(n - 1, tree.findMax());
+        assertEquals(n / 2 + 1, tree.findSuccessor(n / 2));
+
+        XTree<Integer> copy = tree.deepCopy();
+        assertEquals(n, copy.countNodes());
+        assertEquals(n - 1, copy.treeDepth());
+
+        tree.delete(0);
+        tree.delete(n - 1);
+        tree.delete(n / 2);
+        assertFalse(tree.search(n / 2));
+        assertEquals(1, tree.findMin());
+        assertEquals(n - 2, tree.findMax());
+        assertEquals(n - 3, tree.countNodes());
+        assertEquals(n, copy.countNodes()); // Копия не зависит от оригинала
+
+        int visited = 0;
+        Integer previous = null;
+        for (int value : tree) {
+            assertTrue(previous == null || previous < value);
+            previous = value;
+            visited++;
+        }
+        assertEquals(n - 3, visited);
+
+        long[] sum = {0};
+        XTree.applyFunction(tree.getRoot(), (Consumer<Integer>) value -> sum[0] += value);
+        assertEquals((long) (n - 1) * (n - 2) / 2 - n / 2, sum[0]); // 1..n-2 без n/2
+        XTree.applyFunction(copy.getRoot(), (Function<Integer, Integer>) value -> value + 1);
+        assertEquals(1, copy.getRoot().data);
+        assertEquals(n, copy.stream().reduce((a, b) -> b).orElseThrow());
+
+        tree.deleteTree(tree.getRoot());
+        assertEquals(-1, new SearchXT<Integer>().treeDepth());
+    }
+
+    @Test
+    void testPutArrayBuildsBalancedTree() {
+        int n = 1 << 15;
+        ArrayList<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            sorted.add(i);
+            sorted.add(i); // Дубликаты отбрасываются
+        }
+        for (SearchXT.Balancing balancing : SearchXT.Balancing.values()) {
+            SearchXT<Integer> tree = new SearchXT<>(balancing);
+            tree.putArray(sorted); // Отсортированный экспорт больше не превращается в список
+            assertEquals(n, tree.countNodes());
+            assertTrue(tree.treeDepth() <= (balancing == SearchXT.Balancing.TREAP ? 60 : 15), balancing + ": " + tree.treeDepth());
+            assertEquals(0, tree.findMin());
+            assertEquals(n - 1, tree.findMax());
+        }
+
+        SearchXT<Integer> tree = new SearchXT<>();
+        tree.putArray(sorted);
+        Joint<Integer> root = tree.getRoot();
+        tree.putArray(new ArrayList<>(List.of(-1))); // Маленький пакет вставляется без перестройки, и в NONE
+        assertSame(root, tree.getRoot());
+        assertEquals(n + 1, tree.countNodes());
+        assertEquals(-1, tree.findMin());
+    }
+
+    @Test
+    void testPutArrayMergesIntoExistingTree() {
+        Random random = new Random(7);
+        for (SearchXT.Balancing balancing : SearchXT.Balancing.values()) {
+            SearchXT<Integer> tree = new SearchXT<>(Comparator.reverseOrder(), balancing);
+            TreeSet<Integer> expected = new TreeSet<>(Comparator.reverseOrder());
+            for (int round = 0; round < 20; round++) {
+                ArrayList<Integer> batch = new ArrayList<>();
+                int size = random.nextInt(round % 2 == 0 ? 10 : 2000);
+                for (int i = 0; i < size; i++) {
+                    batch.add(random.nextInt(5000));
+                }
+                if (round % 3 == 0) {
+                    tree.putArray(batch, true);
+                } else if (round % 3 == 1) {
+                    tree.putArray(batch, false);
+                } else {
+                    tree.putArray(batch);
+                }
+                expected.addAll(batch);
+                assertEquals(new ArrayList<>(expected), tree.inOrderTraversal(), balancing.toString());
+            }
+        }
+    }
+
+    @Test
+    void testTraversalOrders() {
+        SearchXT<Integer> tree = new SearchXT<>();
+        for (int value : new int[]{50, 30, 70, 20, 40, 60, 80, 65}) {
+            tree.insert(value);
+        }
+        Joint<Integer> root = tree.getRoot();
+        assertEquals(List.of(50, 30, 20, 40, 70, 60, 65, 80), XTree.traverseNLR(root));
+        assertEquals(List.of(20, 30, 40, 50, 60, 65, 70, 80), XTree.traverseLNR(root));
+        assertEquals(List.of(20, 40, 30, 65, 60, 80, 70, 50), XTree.traverseLRN(root));
+        assertEquals(List.of(50, 30, 70, 20, 40, 60, 80, 65), tree.stream(XTree.Order.LEVEL).collect(Collectors.toList()));
+        assertEquals(List.of(50, 30, 20), tree.stream(XTree.Order.NLR).limit(3).collect(Collectors.toList()));
+        assertEquals(XTree.traverseLRN(root), tree.stream(XTree.Order.LRN).collect(Collectors.toList()));
+
+        for (XTree.Order order : XTree.Order.values()) {
+            Iterator<Integer> empty = new SearchXT<Integer>().iterator(order);
+            assertFalse(empty.hasNext());
+            assertThrows(NoSuchElementException.class, empty::next);
+        }
+    }
+
+    @Test
+    void testTraversalOfDegenerateTree() {
+        int n = 100_000;
+        SearchXT<Integer> tree = new SearchXT<>();
+        for (int i = n - 1; i >= 0; i--) {
+            tree.insert(i); // Путь влево глубины n - 1
+        }
+        List<Integer> ascending = tree.stream().collect(Collectors.toList());
+        assertEquals(n, ascending.size());
+        assertEquals(0, ascending.get(0));
+        assertEquals(n - 1, XTree.traverseNLR(tree.getRoot()).get(0));
+        assertEquals(0, XTree.traverseLRN(tree.getRoot()).get(0));
+        assertEquals(n - 1, tree.stream(XTree.Order.LRN).reduce((a, b) -> b).orElseThrow());
+        assertEquals(n, tree.stream(XTree.Order.LEVEL).count());
+    }
+
+    @Test
+    void testPrintTreeWithoutRecursion() throws InterruptedException {
+        int n = 5000; // Вывод растёт как n * h символов, глубину проверяет малый стек потока
+        SearchXT<Integer> tree = new SearchXT<>();
+        for (int i = 0; i < n; i++) {
+            tree.insert(i);
+        }
+        int[] lines = {0};
+        String[] last = {""};
+        Throwable[] failure = {null};
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    lines[0]++;
+                    last[0] = line.toString();
+                    line.setLength(0);
+                } else {
+                    line.append((char) b);
+                }
+            }
+        }));
+        try {
+            Thread printer = new Thread(null, () -> {
+                try {
+                    tree.printTree(tree.getRoot(), 0);
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            }, "printer", 1 << 16); // 64 КБ стека не хватило бы на рекурсию глубины 5000
+            printer.start();
+            printer.join();
+        } finally {
+            System.setOut(out);
+        }
+        assertNull(failure[0]);
+        assertEquals(n, lines[0]);
+        assertEquals("0", last[0].trim()); // Корень печатается последним, без отступа
+    }
+}
@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * Hash table split into several independent UltraHash partitions (shards).
+ * A key is routed to its shard by the high bits of a mixed hash, so the bucket index
+ * inside the shard (low bits) stays independent of the shard choice.
+ * <p>
+ * Batch lookups ({@link #findAll(Collection)}, {@link #containsAll(Collection)}) group keys by shard
+ * and resolve every group in parallel on the common fork/join pool.
+ * Batch lookups may run concurrently with each other, but not with put/remove/clear.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ShardedUltraHash<K, V> implements Iterable<K> {
+    // Below this batch size the grouping and fork/join overhead is larger than the lookups themselves
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    protected final UltraHash<K, V>[] shards; // Independent partitions
+    private final int shardBits; // log2 of the number of shards
+
+    /**
+     * Creates a sharded table.
+     *
+     * @param numShards Number of shards, rounded up to a power of two
+     * @param bucketsPerShard Number of buckets in every shard
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedUltraHash(int numShards, int bucketsPerShard) {
+        if (numShards <= 0 || bucketsPerShard <= 0) {
+            throw new IllegalArgumentException("Number of shards and buckets must be positive");
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(numShards - 1); // O(1) - ceil(log2(numShards))
+        this.shardBits = bits;
+        this.shards = new UltraHash[1 << bits];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new UltraHash<>(bucketsPerShard);
+        }
+    }
+
+    // Default constructor: one shard per available processor, 16 buckets each
+    public ShardedUltraHash() {
+        this(Runtime.getRuntime().availableProcessors(), 16);
+    }
+
+    /**
+     * Computes the shard index of a key from the high bits of its mixed hash code.
+     *
+     * Time complexity: O(1)
+     *
+     * @param key The key
+     * @return Shard index in [0, shardCount)
+     */
+    protected int shardIndex(K key) {
+        if (shardBits == 0) {
+            return 0;
+        }
+        int h = key.hashCode() * 0x9E3779B9; // Fibonacci hashing spreads the entropy into the high bits
+        return h >>> (32 - shardBits);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return Number of shards (a power of two)
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Inserts a key-value pair into the shard owning the key.
+     *
+     * Time complexity: O(1) on average, O(n) in the worst case.
+     *
+     * @param key The key to insert
+     * @param value The value associated with the key
+     */
+    public void put(K key, V value) {
+        shards[shardIndex(key)].put(key, value);
+    }
+
+    /**
+     * Finds a value associated with a given key.
+     *
+     * Time complexity: O(1) on average, O(n) in the worst case.
+     *
+     * @param key The key to find
+     * @return The value associated with the key, or null if the key is not found
+     */
+    public V find(K key) {
+        return shards[shardIndex(key)].find(key);
+    }
+
+    /**
+     * Checks if the table contains the given key.
+     *
+     * @param key The key to check
+     * @return true if the key is present
+     */
+    public boolean contains(K key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Removes the key-value pair with the given key.
+     *
+     * Time complexity: O(1) on average, O(n) in the worst case.
+     *
+     * @param key The key to remove
+     */
+    public void remove(K key) {
+        shards[shardIndex(key)].remove(key);
+    }
+
+    /**
+     * Clears all shards.
+     *
+     * Time complexity: O(n)
+     */
+    public void clear() {
+        for (UltraHash<K, V> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Returns the number of elements in all shards.
+     *
+     * Time complexity: O(s) - s is the number of shards
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        int total = 0;
+        for (UltraHash<K, V> shard : shards) {
+            total += shard.size();
+        }
+        return total;
+    }
+
+    /**
+     * Looks up a batch of keys. Keys are grouped by shard, and the groups are resolved in parallel.
+     *
+     * Time complexity: O(m) work for m keys on average, O(m / p) span on p cores.
+     *
+     * @param keys Keys to look up
+     * @return Values in the iteration order of {@code keys}; null for missing keys
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> findAll(Collection<? extends K> keys) {
+        Object[] batch = keys.toArray();
+        Object[] result = new Object[batch.length];
+        if (batch.length < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < batch.length; i++) { // O(m) - Small batch, plain loop
+                result[i] = find((K) batch[i]);
+            }
+            return Arrays.asList((V[]) result);
+        }
+
+        int[][] groups = groupByShard(batch);
+        IntStream.range(0, shards.length).parallel().forEach(s -> {
+            UltraHash<K, V> shard = shards[s];
+            for (int i : groups[s]) {
+                result[i] = shard.find((K) batch[i]); // Every index is written by exactly one task
+            }
+        });
+        return Arrays.asList((V[]) result);
+    }
+
+    /**
+     * Checks that every key of a batch is present. Groups are checked in parallel,
+     * and the check stops as soon as one missing key is found.
+     *
+     * Time complexity: O(m) work for m keys on average, O(m / p) span on p cores.
+     *
+     * @param keys Keys to check
+     * @return true if all keys are present
+     */
+    @SuppressWarnings("unchecked")
+    public boolean containsAll(Collection<? extends K> keys) {
+        Object[] batch = keys.toArray();
+        if (batch.length < PARALLEL_THRESHOLD) {
+            for (Object key : batch) {
+                if (find((K) key) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int[][] groups = groupByShard(batch);
+        return IntStream.range(0, shards.length).parallel().allMatch(s -> {
+            UltraHash<K, V> shard = shards[s];
+            for (int i : groups[s]) {
+                if (shard.find((K) batch[i]) == null) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Groups the positions of a batch by shard (counting sort, two passes, no boxing).
+     *
+     * Time complexity: O(m + s)
+     *
+     * @param batch Keys of the batch
+     * @return For every shard, the positions of its keys in the batch
+     */
+    @SuppressWarnings("unchecked")
+    private int[][] groupByShard(Object[] batch) {
+        int[] shardOf = new int[batch.length];
+        int[] counts = new int[shards.length];
+        for (int i = 0; i < batch.length; i++) { // O(m) - First pass: shard of every key
+            shardOf[i] = shardIndex((K) batch[i]);
+            counts[shardOf[i]]++;
+        }
+        int[][] groups = new int[shards.length][];
+        for (int s = 0; s < shards.length; s++) {
+            groups[s] = new int[counts[s]];
+            counts[s] = 0; // Reused as the fill position
+        }
+        for (int i = 0; i < batch.length; i++) { // O(m) - Second pass: scatter positions
+            int s = shardOf[i];
+            groups[s][counts[s]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Returns an iterator over all keys, shard by shard.
+     *
+     * @return An iterator for the keys
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<>() {
+            private int currentShard = 0;
+            private Iterator<K> current = shards[0].iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (++currentShard >= shards.length) {
+                        return false;
+                    }
+                    current = shards[currentShard].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public K next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Collects all keys into a list.
+     *
+     * Time complexity: O(n)
+     *
+     * @return A list of all keys
+     */
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(size());
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+}
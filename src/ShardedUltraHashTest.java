@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ShardedUltraHashTest {
+
+    @Test
+    void testShardCountIsPowerOfTwo() {
+        assertEquals(8, new ShardedUltraHash<String, Integer>(5, 4).shardCount());
+        assertEquals(1, new ShardedUltraHash<String, Integer>(1, 4).shardCount());
+    }
+
+    @Test
+    void testPutFindRemove() {
+        ShardedUltraHash<String, Integer> table = new ShardedUltraHash<>(4, 8);
+        table.put("A", 1);
+        table.put("B", 2);
+        table.put("A", 3);
+
+        assertEquals(3, table.find("A"));
+        assertEquals(2, table.find("B"));
+        assertNull(table.find("C"));
+        assertEquals(2, table.size());
+
+        table.remove("A");
+        assertNull(table.find("A"));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testFindAllSmallAndLargeBatch() {
+        ShardedUltraHash<Integer, Integer> table = new ShardedUltraHash<>(8, 64);
+        for (int i = 0; i < 20_000; i++) {
+            table.put(i, i * 2);
+        }
+
+        List<Integer> small = List.of(5, -1, 7);
+        assertEquals(java.util.Arrays.asList(10, null, 14), table.findAll(small));
+
+        List<Integer> large = new ArrayList<>();
+        for (int i = 25_000; i >= 0; i--) {
+            large.add(i);
+        }
+        List<Integer> values = table.findAll(large);
+        assertEquals(large.size(), values.size());
+        for (int i = 0; i < large.size(); i++) {
+            int key = large.get(i);
+            assertEquals(key < 20_000 ? Integer.valueOf(key * 2) : null, values.get(i));
+        }
+    }
+
+    @Test
+    void testContainsAll() {
+        ShardedUltraSet<Integer> set = new ShardedUltraSet<>(4, 64);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            set.add(i);
+            keys.add(i);
+        }
+
+        assertTrue(set.containsAll(keys));
+        assertTrue(set.containsAll(List.of()));
+        keys.add(10_000);
+        assertFalse(set.containsAll(keys));
+        assertFalse(set.containsAll(List.of(1, 2, -3)));
+    }
+
+    @Test
+    void testIteratorVisitsAllKeys() {
+        ShardedUltraHash<Integer, String> table = new ShardedUltraHash<>(4, 4);
+        for (int i = 0; i < 100; i++) {
+            table.put(i, "v" + i);
+        }
+        List<Integer> keys = table.keys();
+        assertEquals(100, keys.size());
+        keys.sort(null);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, keys.get(i));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Set, based on ShardedUltraHash with basic operations and parallel batch membership checks
+ * @param <E>
+ */
+public class ShardedUltraSet<E> extends ShardedUltraHash<E, Boolean> {
+
+    public ShardedUltraSet(int numShards, int bucketsPerShard) {
+        super(numShards, bucketsPerShard); // O(s) - Calls the parent constructor
+    }
+
+    public ShardedUltraSet() {
+        super(); // O(s) - One shard per available processor
+    }
+
+    /**
+     * Adds an element to the set.
+     * <p>
+     * Time complexity: O(1) on average, O(n) in the worst case.
+     *
+     * @param element The element to add
+     */
+    public void add(E element) {
+        put(element, true); // O(1) - Insert element with value 'true'
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Замер поиска при неравномерном (Zipf) доступе: SearchXT в режиме SPLAY против AVLTree и SearchXT в режиме TREAP.
+ * <p>
+ * Ключ ранга r запрашивается с вероятностью, пропорциональной 1 / r^EXPONENT, поэтому большая часть запросов
+ * приходится на малую долю ключей. Каждые PHASE_LOOKUPS запросов соответствие рангов и ключей сдвигается,
+ * горячие ключи меняются - splay-дереву приходится заново подстраиваться.
+ * Запуск: java SplayBenchmark [size] [exponent]
+ */
+public class SplayBenchmark {
+    private static final int LOOKUPS = 4_000_000;
+    private static final int PHASE_LOOKUPS = 500_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double exponent = args.length > 1 ? Double.parseDouble(args[1]) : 0.99;
+        Random random = new Random(47);
+
+        int[] keys = new int[size]; // keys[r] - ключ ранга r, случайная перестановка, горячие ключи разбросаны по дереву
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = keys[i];
+            keys[i] = keys[j];
+            keys[j] = t;
+        }
+        int[] queries = zipfQueries(keys, exponent, random);
+        double hot = hotShare(exponent, size);
+        System.out.printf("Поиск, нс на операцию, ключей %d, Zipf s=%.2f (1%% ключей получает %.0f%% запросов)%n",
+                size, exponent, hot * 100);
+
+        AVLTree<Integer> avl = new AVLTree<>();
+        SearchXT<Integer> treap = new SearchXT<>(SearchXT.Balancing.TREAP);
+        SearchXT<Integer> splay = new SearchXT<>(SearchXT.Balancing.SPLAY);
+        for (int key : keys) { // Порядок вставки случайный
+            avl.insert(key);
+            treap.insert(key);
+            splay.insert(key);
+        }
+        System.out.printf("%-16s %8.1f%n", "AVLTree", measure(avl::contains, queries));
+        System.out.printf("%-16s %8.1f%n", "SearchXT TREAP", measure(treap::search, queries));
+        System.out.printf("%-16s %8.1f%n", "SearchXT SPLAY", measure(splay::search, queries));
+    }
+
+    /**
+     * Запросы по закону Zipf, на каждой фазе ранги сдвигаются на случайное смещение
+     */
+    private static int[] zipfQueries(int[] keys, double exponent, Random random) {
+        int size = keys.length;
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int r = 0; r < size; r++) {
+            sum += 1 / Math.pow(r + 1, exponent);
+            cdf[r] = sum;
+        }
+        int[] queries = new int[LOOKUPS];
+        int shift = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (i % PHASE_LOOKUPS == 0) {
+                shift = random.nextInt(size);
+            }
+            int rank = lowerBound(cdf, random.nextDouble() * sum);
+            queries[i] = keys[(rank + shift) % size];
+        }
+        return queries;
+    }
+
+    private static int lowerBound(double[] cdf, double value) {
+        int lo = 0;
+        int hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Доля запросов, приходящаяся на 1% самых горячих ключей
+     */
+    private static double hotShare(double exponent, int size) {
+        double hot = 0;
+        double total = 0;
+        for (int r = 0; r < size; r++) {
+            double weight = 1 / Math.pow(r + 1, exponent);
+            total += weight;
+            if (r < Math.max(1, size / 100)) {
+                hot += weight;
+            }
+        }
+        return hot / total;
+    }
+
+    /**
+     * Среднее время одного поиска в лучшем из ROUNDS проходов, после прогрева
+     */
+    private static double measure(IntPredicate contains, int[] queries) {
+        long found = 0;
+        for (int query : queries) { // Прогрев
+            found += contains.test(query) ? 1 : 0;
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int query : queries) {
+                found += contains.test(query) ? 1 : 0;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (found != (long) queries.length * (ROUNDS + 1)) { // Все ключи есть, результат используется, чтобы JIT не выбросил поиск
+            throw new IllegalStateException("Lost keys: " + found);
+        }
+        return (double) best / queries.length;
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Узел декартова дерева (treap): ключ упорядочен как в BST, приоритет - как в куче (у родителя не меньше)
+ * @param <T> тип данных узла
+ */
+class TreapJoint<T> extends Joint<T> {
+    final int priority; // Случайный, поэтому форма дерева не зависит от порядка вставки
+
+    /**
+     * Конструктор листа с данными и приоритетом
+     * @param data данные узла
+     * @param priority приоритет узла
+     */
+    TreapJoint(T data, int priority) {
+        super(data);
+        this.priority = priority;
+    }
+}
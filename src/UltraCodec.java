@@ -0,0 +1,311 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Compact versioned binary codec for UltraHash, UltraSet and UltraDict.
+ * <p>
+ * Format (big-endian):
+ * <pre>
+ * int  magic ('U','L','T','R')
+ * byte version
+ * byte kind (HASH, SET, DICT)
+ * int  number of buckets of the written table
+ * int  number of entries
+ * entries: key, then for HASH/DICT a presence byte and the value if it is not null
+ * </pre>
+ * UltraDict entries are written in insertion order. Keys and values are written by pluggable
+ * {@link Serializer}s. Streams are buffered, so the whole table is never materialized in memory;
+ * because of the read-ahead, one channel should hold one container.
+ * <p>
+ * Loading presizes the table (about 0.75 entries per bucket) and appends the entries
+ * without duplicate checks, since the snapshot keys are unique. The header is untrusted input,
+ * so the presize is capped at {@link #MAX_PRESIZE} entries; past it the table doubles as entries are
+ * actually read, and a forged count ends with an EOF instead of a huge allocation.
+ */
+public final class UltraCodec {
+    public static final int MAGIC = 0x554C5452; // "ULTR"
+    public static final byte VERSION = 1;
+
+    static final byte KIND_HASH = 1;
+    static final byte KIND_SET = 2;
+    static final byte KIND_DICT = 3;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    static final int MAX_PRESIZE = 1 << 16; // Entries, the table is presized for at most this many before any is read
+
+    private UltraCodec() {}
+
+    /**
+     * Writes and reads values of one type.
+     * @param <T> type of the values
+     */
+    public interface Serializer<T> {
+        void write(T value, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    public static final Serializer<Integer> INTEGER = new Serializer<>() {
+        @Override
+        public void write(Integer value, DataOutput out) throws IOException { out.writeInt(value); }
+
+        @Override
+        public Integer read(DataInput in) throws IOException { return in.readInt(); }
+    };
+
+    public static final Serializer<Long> LONG = new Serializer<>() {
+        @Override
+        public void write(Long value, DataOutput out) throws IOException { out.writeLong(value); }
+
+        @Override
+        public Long read(DataInput in) throws IOException { return in.readLong(); }
+    };
+
+    public static final Serializer<Double> DOUBLE = new Serializer<>() {
+        @Override
+        public void write(Double value, DataOutput out) throws IOException { out.writeDouble(value); }
+
+        @Override
+        public Double read(DataInput in) throws IOException { return in.readDouble(); }
+    };
+
+    /**
+     * UTF-8 string with an int length prefix (no 64 KB limit unlike writeUTF)
+     */
+    public static final Serializer<String> STRING = new Serializer<>() {
+        @Override
+        public void write(String value, DataOutput out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Negative string length: " + length);
+            }
+            return new String(readBytes(in, length), StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Reads length bytes. The length comes from the stream, so beyond BUFFER_SIZE the array grows
+     * by chunks as bytes actually arrive, and a forged length ends with an EOF instead of a huge allocation
+     */
+    private static byte[] readBytes(DataInput in, int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, (long) bytes.length * 2)); // O(length) in total
+            }
+            int chunk = bytes.length - read;
+            in.readFully(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a hash table to the channel.
+     *
+     * Time complexity: O(n)
+     *
+     * @param table table to write
+     * @param keys key serializer
+     * @param values value serializer
+     * @param channel target channel, it is not closed
+     */
+    public static <K, V> void writeHash(UltraHash<K, V> table, Serializer<K> keys, Serializer<V> values,
+                                        WritableByteChannel channel) throws IOException {
+        DataOutputStream out = open(channel);
+        writeHeader(out, KIND_HASH, table.numBuckets, table.size());
+        for (int i = 0; i < table.numBuckets; i++) { // O(n) - Bucket order, no intermediate lists
+            for (UltraHash.Entry<K, V> entry : table.buckets[i]) {
+                keys.write(entry.key, out);
+                writeValue(entry.value, values, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a hash table written by {@link #writeHash}.
+     *
+     * Time complexity: O(n)
+     */
+    public static <K, V> UltraHash<K, V> readHash(ReadableByteChannel channel, Serializer<K> keys,
+                                                  Serializer<V> values) throws IOException {
+        DataInputStream in = open(channel);
+        int count = readHeader(in, KIND_HASH);
+        UltraHash<K, V> table = new UltraHash<>(presizeFor(count));
+        for (int i = 0; i < count; i++) {
+            K key = keys.read(in);
+            growFor(table, count);
+            table.putUnique(key, readValue(values, in));
+        }
+        return table;
+    }
+
+    /**
+     * Writes a set to the channel. Only elements are written.
+     *
+     * Time complexity: O(n)
+     */
+    public static <E> void writeSet(UltraSet<E> set, Serializer<E> elements,
+                                    WritableByteChannel channel) throws IOException {
+        DataOutputStream out = open(channel);
+        writeHeader(out, KIND_SET, set.numBuckets, set.size());
+        for (int i = 0; i < set.numBuckets; i++) {
+            for (UltraHash.Entry<E, Boolean> entry : set.buckets[i]) {
+                elements.write(entry.key, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a set written by {@link #writeSet}.
+     *
+     * Time complexity: O(n)
+     */
+    public static <E> UltraSet<E> readSet(ReadableByteChannel channel, Serializer<E> elements) throws IOException {
+        DataInputStream in = open(channel);
+        int count = readHeader(in, KIND_SET);
+        UltraSet<E> set = new UltraSet<>(presizeFor(count));
+        for (int i = 0; i < count; i++) {
+            E element = elements.read(in);
+            growFor(set, count);
+            set.putUnique(element, true);
+        }
+        return set;
+    }
+
+    /**
+     * Writes a dictionary to the channel in insertion order.
+     * A key is written once at its first position, even if the order list of the dictionary repeats it
+     * (UltraDict.put with a null value appends the key again), so the header count always matches the body.
+     *
+     * Time complexity: O(n)
+     */
+    public static <K, V> void writeDict(UltraDict<K, V> dict, Serializer<K> keys, Serializer<V> values,
+                                        WritableByteChannel channel) throws IOException {
+        DataOutputStream out = open(channel);
+        Set<K> order = new LinkedHashSet<>(dict.keys()); // O(n) - Insertion order without repeats
+        writeHeader(out, KIND_DICT, dict.numBuckets, order.size());
+        for (K key : order) {
+            keys.write(key, out);
+            writeValue(dict.find(key), values, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a dictionary written by {@link #writeDict}, restoring the insertion order.
+     *
+     * Time complexity: O(n)
+     */
+    public static <K, V> UltraDict<K, V> readDict(ReadableByteChannel channel, Serializer<K> keys,
+                                                  Serializer<V> values) throws IOException {
+        DataInputStream in = open(channel);
+        int count = readHeader(in, KIND_DICT);
+        UltraDict<K, V> dict = new UltraDict<>(presizeFor(count));
+        for (int i = 0; i < count; i++) {
+            K key = keys.read(in);
+            growFor(dict, count);
+            dict.putUnique(key, readValue(values, in));
+        }
+        return dict;
+    }
+
+    /**
+     * Number of buckets for a table of the given size (load factor 0.75, at least 16)
+     */
+    static int bucketsFor(int count) {
+        return Math.max(16, (int) Math.min(Integer.MAX_VALUE - 8, (long) count * 4 / 3 + 1));
+    }
+
+    /**
+     * Initial number of buckets for a table that the header claims has count entries
+     */
+    static int presizeFor(int count) {
+        return bucketsFor(Math.min(count, MAX_PRESIZE));
+    }
+
+    /**
+     * Doubles the buckets of a loading table before it passes 0.75 entries per bucket,
+     * up to the size announced by the header. Amortized O(1) per entry
+     */
+    private static void growFor(UltraHash<?, ?> table, int count) {
+        int target = bucketsFor(count);
+        if (table.numBuckets < target && table.size() >= (long) table.numBuckets * 3 / 4) {
+            table.rehash((int) Math.min(target, (long) table.numBuckets * 2));
+        }
+    }
+
+    private static DataOutputStream open(WritableByteChannel channel) {
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    private static DataInputStream open(ReadableByteChannel channel) {
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    private static void writeHeader(DataOutput out, byte kind, int numBuckets, int count) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        out.writeInt(numBuckets);
+        out.writeInt(count);
+    }
+
+    /**
+     * Checks the header and returns the number of entries
+     */
+    private static int readHeader(DataInput in, byte kind) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an UltraCodec stream");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported UltraCodec version: " + version);
+        }
+        byte actualKind = in.readByte();
+        if (actualKind != kind) {
+            throw new IOException("Unexpected container kind: " + actualKind + ", expected " + kind);
+        }
+        in.readInt(); // Number of buckets of the written table, the loaded table is presized by count
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative entry count: " + count);
+        }
+        return count;
+    }
+
+    private static <V> void writeValue(V value, Serializer<V> values, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            values.write(value, out);
+        }
+    }
+
+    private static <V> V readValue(Serializer<V> values, DataInput in) throws IOException {
+        return in.readBoolean() ? values.read(in) : null;
+    }
+}
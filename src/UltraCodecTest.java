@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+class UltraCodecTest {
+
+    private static ReadableByteChannel reader(ByteArrayOutputStream bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    void testHashRoundTrip() throws IOException {
+        UltraHash<String, Integer> table = new UltraHash<>(4);
+        for (int i = 0; i < 1000; i++) {
+            table.put("key" + i, i);
+        }
+        table.put("null", null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeHash(table, UltraCodec.STRING, UltraCodec.INTEGER, Channels.newChannel(bytes));
+        UltraHash<String, Integer> restored = UltraCodec.readHash(reader(bytes), UltraCodec.STRING, UltraCodec.INTEGER);
+
+        assertEquals(table.size(), restored.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, restored.find("key" + i));
+        }
+        assertNull(restored.find("null"));
+        assertTrue(restored.numBuckets >= 1000, "Loaded table should be presized");
+    }
+
+    @Test
+    void testSetRoundTrip() throws IOException {
+        UltraSet<Long> set = new UltraSet<>();
+        set.add(1L);
+        set.add(-5L);
+        set.add(Long.MAX_VALUE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeSet(set, UltraCodec.LONG, Channels.newChannel(bytes));
+        UltraSet<Long> restored = UltraCodec.readSet(reader(bytes), UltraCodec.LONG);
+
+        assertEquals(3, restored.size());
+        assertTrue(restored.contains(-5L));
+        assertTrue(restored.contains(Long.MAX_VALUE));
+        assertFalse(restored.contains(2L));
+    }
+
+    @Test
+    void testDictKeepsInsertionOrder() throws IOException {
+        UltraDict<String, String> dict = new UltraDict<>();
+        dict.put("zeta", "1");
+        dict.put("alpha", "2");
+        dict.put("мир", "3");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeDict(dict, UltraCodec.STRING, UltraCodec.STRING, Channels.newChannel(bytes));
+        UltraDict<String, String> restored = UltraCodec.readDict(reader(bytes), UltraCodec.STRING, UltraCodec.STRING);
+
+        assertEquals(List.of("zeta", "alpha", "мир"), restored.keys());
+        assertEquals(List.of("1", "2", "3"), restored.values());
+        UltraDict<String, String> nulls = new UltraDict<>();
+        nulls.put("a", null);
+        nulls.put("a", null); // A key with a null value is appended to the order twice
+        nulls.put("b", "x");
+        bytes.reset();
+        UltraCodec.writeDict(nulls, UltraCodec.STRING, UltraCodec.STRING, Channels.newChannel(bytes));
+        restored = UltraCodec.readDict(reader(bytes), UltraCodec.STRING, UltraCodec.STRING);
+
+        assertEquals(List.of("a", "b"), restored.keys());
+        assertNull(restored.get("a"));
+        assertEquals("x", restored.get("b"));
+    }
+
+    @Test
+    void testRejectsWrongKind() throws IOException {
+        UltraSet<Integer> set = new UltraSet<>();
+        set.add(1);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeSet(set, UltraCodec.INTEGER, Channels.newChannel(bytes));
+
+        assertThrows(IOException.class,
+                () -> UltraCodec.readHash(reader(bytes), UltraCodec.INTEGER, UltraCodec.INTEGER));
+    }
+
+    @Test
+    void testRejectsGarbage() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.writeBytes(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14});
+
+        assertThrows(IOException.class, () -> UltraCodec.readSet(reader(bytes), UltraCodec.INTEGER));
+    }
+
+    @Test
+    void testForgedCountDoesNotPresizeTable() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(UltraCodec.MAGIC);
+        out.writeByte(UltraCodec.VERSION);
+        out.writeByte(UltraCodec.KIND_DICT);
+        out.writeInt(16);
+        out.writeInt(1_500_000_000); // Valid header, but the body is missing
+
+        assertThrows(IOException.class,
+                () -> UltraCodec.readDict(reader(bytes), UltraCodec.STRING, UltraCodec.STRING));
+        assertEquals(UltraCodec.bucketsFor(UltraCodec.MAX_PRESIZE), UltraCodec.presizeFor(1_500_000_000));
+    }
+
+    @Test
+    void testLargeTableGrowsPastPresize() throws IOException {
+        UltraSet<Integer> set = new UltraSet<>(UltraCodec.bucketsFor(UltraCodec.MAX_PRESIZE * 3));
+        for (int i = 0; i < UltraCodec.MAX_PRESIZE * 3; i++) {
+            set.add(i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeSet(set, UltraCodec.INTEGER, Channels.newChannel(bytes));
+        UltraSet<Integer> restored = UltraCodec.readSet(reader(bytes), UltraCodec.INTEGER);
+
+        assertEquals(set.size(), restored.size());
+        assertTrue(restored.contains(UltraCodec.MAX_PRESIZE * 3 - 1));
+        assertTrue(restored.stats().loadFactor <= 0.75);
+        assertTrue(restored.stats().resizeCount > 0); // Grown past the capped presize
+    }
+
+    @Test
+    void testRejectsForgedStringLength() throws IOException {
+        for (int length : new int[]{-1, Integer.MAX_VALUE - 8}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(UltraCodec.MAGIC);
+            out.writeByte(UltraCodec.VERSION);
+            out.writeByte(UltraCodec.KIND_SET);
+            out.writeInt(16);
+            out.writeInt(1);
+            out.writeInt(length); // Length of the only string, its bytes are missing
+            out.writeBytes("abc");
+
+            assertThrows(IOException.class, () -> UltraCodec.readSet(reader(bytes), UltraCodec.STRING));
+        }
+
+        UltraSet<String> set = new UltraSet<>();
+        String large = "x".repeat(200_000) + "ё"; // Longer than one read chunk
+        set.add(large);
+        set.add("");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UltraCodec.writeSet(set, UltraCodec.STRING, Channels.newChannel(bytes));
+        UltraSet<String> restored = UltraCodec.readSet(reader(bytes), UltraCodec.STRING);
+        assertTrue(restored.contains(large));
+        assertTrue(restored.contains(""));
+    }
+}
@@ -34,6 +34,20 @@ public class UltraDict<K, V> extends UltraHash<K, V> {
         super.put(key, value); // O(1) - Insert the key-value pair in the hash table
     }
 
+    /**
+     * Appends a key-value pair known to be new, keeping the insertion order.
+     * <p>
+     * Time complexity: O(1)
+     *
+     * @param key The key to insert, must not be present in the dictionary
+     * @param value The value associated with the key
+     */
+    @Override
+    protected void putUnique(K key, V value) {
+        order.add(key); // O(1) - Append to the insertion order list
+        super.putUnique(key, value); // O(1) - No bucket scan
+    }
+
     /**
      * Retrieves the value associated with the given key.
      * <p>
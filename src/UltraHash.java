@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
@@ -11,6 +12,7 @@ public class UltraHash<K, V> implements Iterable<K> {
     protected int numBuckets; // Number of buckets in the table
     protected LinkedList<Entry<K, V>>[] buckets; // Array of buckets (LinkedLists)
     protected int size; // Number of elements in the table
+    protected int resizeCount; // Number of rehash calls over the table lifetime
 
     // Constructor with specified number of buckets
     @SuppressWarnings("unchecked")
@@ -63,10 +65,97 @@ public class UltraHash<K, V> implements Iterable<K> {
         }
 
         // If the key does not exist, add a new entry
-        bucket.add(new Entry<>(key, value)); // O(1) - Add new entry to the list
+        bucket.add(createEntry(key, value)); // O(1) - Add new entry to the list
         size++; // O(1) - Increase size of the table
     }
 
+    /**
+     * Appends a key-value pair without looking for an existing entry with the same key.
+     * Used for bulk loading when the keys are known to be unique (e.g. restored from a snapshot).
+     *
+     * Time complexity: O(1)
+     *
+     * @param key The key to insert, must not be present in the table
+     * @param value The value associated with the key
+     */
+    protected void putUnique(K key, V value) {
+        buckets[hash(key)].add(createEntry(key, value)); // O(1) - No bucket scan
+        size++;
+    }
+
+    /**
+     * Creates the entry for a new key. Subclasses override it to keep extra per-key data in the entry itself.
+     *
+     * @param key The key
+     * @param value The value
+     * @return A new entry
+     */
+    protected Entry<K, V> createEntry(K key, V value) {
+        return new Entry<>(key, value);
+    }
+
+    /**
+     * Redistributes all entries over a new number of buckets, reusing the entry objects.
+     *
+     * Time complexity: O(n + b)
+     *
+     * @param newNumBuckets The new number of buckets
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected void rehash(int newNumBuckets) {
+        LinkedList<Entry<K, V>>[] old = buckets;
+        resizeCount++;
+        numBuckets = newNumBuckets;
+        buckets = new LinkedList[newNumBuckets];
+        for (int i = 0; i < newNumBuckets; i++) {
+            buckets[i] = new LinkedList<>();
+        }
+        for (LinkedList<Entry<K, V>> bucket : old) { // O(n) - Every entry moves once
+            for (Entry<K, V> entry : bucket) {
+                buckets[hash(entry.key)].add(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the key without adding it.
+     *
+     * Time complexity: O(n) in the worst case, O(1) on average.
+     *
+     * @param key The key to look up
+     * @return The entry, or null if the key is not found
+     */
+    protected Entry<K, V> findEntry(K key) {
+        for (Entry<K, V> entry : buckets[hash(key)]) { // O(n) - Traversing the bucket's list
+            if (entry.key.equals(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the entry of the key, adding a new entry with a null value if the key is missing.
+     * Lets callers update the value in place with a single bucket scan.
+     *
+     * Time complexity: O(n) in the worst case, O(1) on average.
+     *
+     * @param key The key to look up or insert
+     * @return The existing or newly added entry
+     */
+    protected Entry<K, V> findOrAddEntry(K key) {
+        LinkedList<Entry<K, V>> bucket = buckets[hash(key)];
+        for (Entry<K, V> entry : bucket) { // O(n) - Traversing the bucket's list
+            if (entry.key.equals(key)) {
+                return entry;
+            }
+        }
+        Entry<K, V> entry = createEntry(key, null);
+        bucket.add(entry); // O(1) - Add new entry to the list
+        size++;
+        return entry;
+    }
+
     /**
      * Finds a value associated with a given key in the hash table.
      *
@@ -134,6 +223,109 @@ public class UltraHash<K, V> implements Iterable<K> {
         return size; // O(1) - Return the current size
     }
 
+    /**
+     * Collects occupancy statistics of the table: chain length histogram, average and maximum
+     * chain length, load factor, number of resizes and an estimate of retained memory.
+     * Only bucket sizes are read (no entry is visited), so it is cheap enough to poll.
+     *
+     * Time complexity: O(b) - b is the number of buckets
+     *
+     * @return A snapshot of the table statistics
+     */
+    public Stats stats() {
+        int[] histogram = new int[Stats.HISTOGRAM_BINS];
+        int maxChain = 0;
+        int occupied = 0;
+        long probeSum = 0; // Sum of comparisons needed to find every key
+        for (int i = 0; i < numBuckets; i++) { // O(b) - LinkedList.size() is O(1)
+            int length = buckets[i].size();
+            histogram[Math.min(length, Stats.HISTOGRAM_BINS - 1)]++;
+            if (length > 0) {
+                occupied++;
+                maxChain = Math.max(maxChain, length);
+                probeSum += (long) length * (length + 1) / 2;
+            }
+        }
+        return new Stats(numBuckets, size, occupied, maxChain,
+                occupied == 0 ? 0.0 : (double) size / occupied,
+                size == 0 ? 0.0 : (double) probeSum / size,
+                (double) size / numBuckets,
+                Stats.estimateBytes(numBuckets, size),
+                resizeCount,
+                histogram);
+    }
+
+    /**
+     * Snapshot of the table statistics returned by {@link #stats()}.
+     */
+    public static final class Stats {
+        /** Number of histogram bins; the last one counts buckets with HISTOGRAM_BINS - 1 or more entries */
+        public static final int HISTOGRAM_BINS = 9;
+
+        // Rough object sizes for a 64-bit JVM with compressed oops
+        private static final long REFERENCE_BYTES = 4;
+        private static final long ARRAY_HEADER_BYTES = 16;
+        private static final long LINKED_LIST_BYTES = 32; // LinkedList object: header, size, modCount, first, last
+        private static final long LIST_NODE_BYTES = 24; // LinkedList.Node: header, item, next, prev
+        private static final long ENTRY_BYTES = 24; // Entry: header, key, value (padded)
+
+        public final int buckets;
+        public final int size;
+        public final int occupiedBuckets;
+        public final int maxChainLength;
+        public final double averageChainLength; // Over occupied buckets
+        public final double averageProbeLength; // Expected comparisons for a successful lookup
+        public final double loadFactor;
+        public final long estimatedBytes; // Table structure only, keys and values are not counted
+        public final int resizeCount; // Rehashes since the table was created
+        private final int[] histogram;
+
+        Stats(int buckets, int size, int occupiedBuckets, int maxChainLength, double averageChainLength,
+              double averageProbeLength, double loadFactor, long estimatedBytes, int resizeCount, int[] histogram) {
+            this.buckets = buckets;
+            this.size = size;
+            this.occupiedBuckets = occupiedBuckets;
+            this.maxChainLength = maxChainLength;
+            this.averageChainLength = averageChainLength;
+            this.averageProbeLength = averageProbeLength;
+            this.loadFactor = loadFactor;
+            this.estimatedBytes = estimatedBytes;
+            this.resizeCount = resizeCount;
+            this.histogram = histogram;
+        }
+
+        /**
+         * Returns the chain length histogram: element i is the number of buckets with i entries
+         * (the last element counts all longer chains too).
+         *
+         * @return A copy of the histogram
+         */
+        public int[] histogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Estimated retained bytes per entry, or 0 for an empty table
+         */
+        public double bytesPerEntry() {
+            return size == 0 ? 0.0 : (double) estimatedBytes / size;
+        }
+
+        static long estimateBytes(int buckets, int size) {
+            return ARRAY_HEADER_BYTES + buckets * (REFERENCE_BYTES + LINKED_LIST_BYTES)
+                    + (long) size * (LIST_NODE_BYTES + ENTRY_BYTES);
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{buckets=" + buckets + ", size=" + size + ", occupied=" + occupiedBuckets
+                    + ", maxChain=" + maxChainLength + ", avgChain=" + String.format("%.2f", averageChainLength)
+                    + ", avgProbe=" + String.format("%.2f", averageProbeLength)
+                    + ", load=" + String.format("%.2f", loadFactor) + ", bytes=" + estimatedBytes
+                    + ", resizes=" + resizeCount + ", histogram=" + Arrays.toString(histogram) + "}";
+        }
+    }
+
     /**
      * Returns an iterator for the keys in the hash table.
      *
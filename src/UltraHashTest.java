@@ -64,4 +64,40 @@ class UltraHashTest {
         hashTable.remove("A");
         assertEquals(1, hashTable.size());
     }
+
+    @Test
+    void testStats() {
+        UltraHash<Integer, Integer> hashTable = new UltraHash<>(4);
+        UltraHash.Stats empty = hashTable.stats();
+        assertEquals(0, empty.size);
+        assertEquals(0, empty.maxChainLength);
+        assertEquals(4, empty.histogram()[0]);
+
+        // 0, 4, 8 share bucket 0; 1 is alone in bucket 1
+        hashTable.put(0, 0);
+        hashTable.put(4, 4);
+        hashTable.put(8, 8);
+        hashTable.put(1, 1);
+        UltraHash.Stats stats = hashTable.stats();
+
+        assertEquals(4, stats.size);
+        assertEquals(2, stats.occupiedBuckets);
+        assertEquals(3, stats.maxChainLength);
+        assertEquals(1.0, stats.loadFactor, 1e-9);
+        assertEquals(2.0, stats.averageChainLength, 1e-9);
+        assertEquals((1 + 2 + 3 + 1) / 4.0, stats.averageProbeLength, 1e-9);
+        int[] histogram = stats.histogram();
+        assertEquals(2, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(1, histogram[3]);
+        assertTrue(stats.estimatedBytes > 0);
+        assertEquals(0, stats.resizeCount);
+
+        hashTable.rehash(16);
+        UltraHash.Stats resized = hashTable.stats();
+        assertEquals(1, resized.resizeCount);
+        assertEquals(16, resized.buckets);
+        assertEquals(4, resized.occupiedBuckets);
+        assertTrue(resized.toString().contains("resizes=1"));
+    }
 }
@@ -0,0 +1,211 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Multimap based on UltraHash: every key maps to a compact run of values.
+ * A run is a plain object array stored as the entry value, and the run length lives in the entry itself
+ * (a small Entry subclass), so a key costs one entry and one array instead of a List object per key,
+ * and appending a value needs a single lookup.
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class UltraMultiHash<K, V> implements Iterable<K> {
+    private static final int INITIAL_RUN_CAPACITY = 2; // Most keys of an index have only a few values
+
+    private final UltraHash<K, Object[]> table; // Key -> run of values
+    private long valueCount; // Total number of values over all keys
+
+    public UltraMultiHash(int numBuckets) {
+        this.table = new UltraHash<>(numBuckets) { // O(b) - Create the buckets
+            @Override
+            protected Entry<K, Object[]> createEntry(K key, Object[] value) {
+                return new Run<>(key, value);
+            }
+        };
+    }
+
+    public UltraMultiHash() {
+        this(16); // Default number of buckets is 16
+    }
+
+    /**
+     * Appends a value to the run of the key.
+     * <p>
+     * Time complexity: O(1) amortized on average (one lookup, doubling growth).
+     *
+     * @param key The key
+     * @param value The value to append
+     */
+    public void put(K key, V value) {
+        Run<K> run = (Run<K>) table.findOrAddEntry(key); // O(1) - Single lookup
+        if (run.value == null) {
+            run.value = new Object[INITIAL_RUN_CAPACITY];
+        } else if (run.count == run.value.length) {
+            run.value = Arrays.copyOf(run.value, run.count << 1); // O(r) - Doubling, amortized O(1)
+        }
+        run.value[run.count++] = value;
+        valueCount++;
+    }
+
+    /**
+     * Returns a read-only view of the values of the key in insertion order.
+     * The view reflects later appends to the same key.
+     * <p>
+     * Time complexity: O(1) on average.
+     *
+     * @param key The key
+     * @return The values of the key, an empty list if the key is missing
+     */
+    public List<V> get(K key) {
+        Run<K> run = (Run<K>) table.findEntry(key);
+        return run == null ? List.of() : new RunView(run); // O(1) - The view is not stored, runs stay small
+    }
+
+    /**
+     * Checks if the key has at least one value.
+     *
+     * @param key The key to check
+     * @return true if the key is present
+     */
+    public boolean containsKey(K key) {
+        return table.find(key) != null;
+    }
+
+    /**
+     * Returns the number of values of the key.
+     *
+     * @param key The key
+     * @return Number of values, 0 if the key is missing
+     */
+    public int count(K key) {
+        Run<K> run = (Run<K>) table.findEntry(key);
+        return run == null ? 0 : run.count;
+    }
+
+    /**
+     * Removes the key with all its values.
+     * <p>
+     * Time complexity: O(1) on average.
+     *
+     * @param key The key to remove
+     * @return The removed values, an empty list if the key was missing
+     */
+    public List<V> removeAll(K key) {
+        Run<K> run = (Run<K>) table.findEntry(key);
+        if (run == null) {
+            return List.of();
+        }
+        table.remove(key);
+        valueCount -= run.count;
+        return new RunView(run);
+    }
+
+    /**
+     * Removes the first occurrence of a value from the run of the key.
+     * The key is removed when its last value is removed.
+     * <p>
+     * Time complexity: O(r) - r is the number of values of the key.
+     *
+     * @param key The key
+     * @param value The value to remove
+     * @return true if the value was found
+     */
+    public boolean remove(K key, V value) {
+        Run<K> run = (Run<K>) table.findEntry(key);
+        if (run == null) {
+            return false;
+        }
+        Object[] items = run.value;
+        for (int i = 0; i < run.count; i++) {
+            if (value == null ? items[i] == null : value.equals(items[i])) {
+                System.arraycopy(items, i + 1, items, i, run.count - i - 1); // Keep insertion order
+                items[--run.count] = null;
+                valueCount--;
+                if (run.count == 0) {
+                    table.remove(key);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of distinct keys.
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns the total number of values over all keys.
+     *
+     * Time complexity: O(1)
+     *
+     * @return The number of values
+     */
+    public long valueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Clears all keys and values.
+     *
+     * Time complexity: O(b)
+     */
+    public void clear() {
+        table.clear();
+        valueCount = 0;
+    }
+
+    /**
+     * Returns an iterator for the keys.
+     *
+     * @return An iterator for the keys
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return table.iterator();
+    }
+
+    /**
+     * Table entry that also keeps the run length: values occupy value[0..count)
+     */
+    private static final class Run<K> extends UltraHash.Entry<K, Object[]> {
+        int count;
+
+        Run(K key, Object[] value) {
+            super(key, value);
+        }
+    }
+
+    /**
+     * Read-only list view over a run. Holds the entry, because the run array is replaced when it grows
+     */
+    private final class RunView extends AbstractList<V> implements RandomAccess {
+        private final Run<K> run;
+
+        RunView(Run<K> run) {
+            this.run = run;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            if (index < 0 || index >= run.count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + run.count);
+            }
+            return (V) run.value[index];
+        }
+
+        @Override
+        public int size() {
+            return run.count;
+        }
+    }
+}
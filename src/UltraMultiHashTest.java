@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class UltraMultiHashTest {
+
+    @Test
+    void testPutAndGetKeepOrder() {
+        UltraMultiHash<String, Integer> index = new UltraMultiHash<>(8);
+        index.put("a", 1);
+        index.put("b", 2);
+        index.put("a", 3);
+        index.put("a", 1);
+
+        assertEquals(List.of(1, 3, 1), index.get("a"));
+        assertEquals(List.of(2), index.get("b"));
+        assertEquals(List.of(), index.get("c"));
+        assertEquals(2, index.size());
+        assertEquals(4, index.valueCount());
+        assertEquals(3, index.count("a"));
+    }
+
+    @Test
+    void testRunGrowsPastInitialCapacity() {
+        UltraMultiHash<Integer, Integer> index = new UltraMultiHash<>();
+        for (int i = 0; i < 1000; i++) {
+            index.put(i % 3, i);
+        }
+        List<Integer> zeros = index.get(0);
+        assertEquals(334, zeros.size());
+        for (int i = 0; i < zeros.size(); i++) {
+            assertEquals(i * 3, zeros.get(i));
+        }
+        assertEquals(1000, index.valueCount());
+    }
+
+    @Test
+    void testGetIsReadOnly() {
+        UltraMultiHash<String, Integer> index = new UltraMultiHash<>();
+        index.put("a", 1);
+        assertThrows(UnsupportedOperationException.class, () -> index.get("a").add(2));
+        assertThrows(UnsupportedOperationException.class, () -> index.get("missing").add(2));
+    }
+
+    @Test
+    void testRemoveAll() {
+        UltraMultiHash<String, Integer> index = new UltraMultiHash<>();
+        index.put("a", 1);
+        index.put("a", 2);
+        index.put("b", 3);
+
+        assertEquals(List.of(1, 2), index.removeAll("a"));
+        assertFalse(index.containsKey("a"));
+        assertEquals(1, index.size());
+        assertEquals(1, index.valueCount());
+        assertEquals(List.of(), index.removeAll("a"));
+    }
+
+    @Test
+    void testRemoveSingleValue() {
+        UltraMultiHash<String, Integer> index = new UltraMultiHash<>();
+        index.put("a", 1);
+        index.put("a", 2);
+        index.put("a", 3);
+
+        assertTrue(index.remove("a", 2));
+        assertFalse(index.remove("a", 5));
+        assertEquals(List.of(1, 3), index.get("a"));
+        assertTrue(index.remove("a", 1));
+        assertTrue(index.remove("a", 3));
+        assertFalse(index.containsKey("a"));
+        assertEquals(0, index.valueCount());
+    }
+
+    @Test
+    void testNullValuesAndLiveView() {
+        UltraMultiHash<String, Integer> index = new UltraMultiHash<>();
+        index.put("a", null);
+        List<Integer> view = index.get("a");
+        for (int i = 0; i < 10; i++) {
+            index.put("a", i); // The view follows the run through its growth
+        }
+        index.put("a", null);
+
+        assertEquals(12, view.size());
+        assertEquals(12, index.count("a"));
+        assertNull(view.get(0));
+        assertEquals(9, view.get(10));
+        assertNull(view.get(11));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(12));
+        assertTrue(index.remove("a", null));
+        assertEquals(0, view.get(0));
+        assertEquals(11, index.valueCount());
+        assertFalse(index.remove("b", null));
+    }
+}
@@ -1,15 +1,18 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Класс бинарного дерева
  */
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.Stack;
-
 public class XTree<T> implements Iterable<T> {
     private Joint<T> root;
 
@@ -17,42 +20,127 @@ public class XTree<T> implements Iterable<T> {
         this.root = new Joint<>(d);
     }
 
-    /// Конструктор копирования для узлов (NLR)
+    /// Конструктор копирования для узлов (NLR), без рекурсии: стек хранит пары (исходный узел, его копия)
     private Joint<T> copyNodes(Joint<T> node) {
         if (node == null) {
             return null;
         }
         // Создаем новый узел с копией данных
-        Joint<T> newNode = new Joint<>(node.data);
-        newNode.Left = copyNodes(node.Left);   // Копируем левое поддерево
-        newNode.Right = copyNodes(node.Right); // Копируем правое поддерево
-        return newNode;
+        Joint<T> newRoot = new Joint<>(node.data);
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+        stack.push(node);
+        stack.push(newRoot);
+        while (!stack.isEmpty()) {
+            Joint<T> copy = stack.pop();
+            Joint<T> source = stack.pop();
+            if (source.Left != null) { // Копируем левое поддерево
+                copy.Left = new Joint<>(source.Left.data);
+                stack.push(source.Left);
+                stack.push(copy.Left);
+            }
+            if (source.Right != null) { // Копируем правое поддерево
+                copy.Right = new Joint<>(source.Right.data);
+                stack.push(source.Right);
+                stack.push(copy.Right);
+            }
+        }
+        return newRoot;
     }
 
-    //написать комент какой итератор возвращается
+    /**
+     * Порядок обхода дерева
+     */
+    public enum Order {
+        /** Прямой: узел, левое поддерево, правое поддерево */
+        NLR,
+        /** Симметричный: левое поддерево, узел, правое поддерево (для дерева поиска - по возрастанию) */
+        LNR,
+        /** Обратный: левое поддерево, правое поддерево, узел */
+        LRN,
+        /** По уровням сверху вниз, слева направо */
+        LEVEL
+    }
+
+    /**
+     * Итератор симметричного обхода (LNR)
+     */
     @Override
     public Iterator<T> iterator() {
-        return new XTreeIterator<>(root);
+        return new InOrderIterator<>(root);
+    }
+
+    /**
+     * Ленивый итератор обхода дерева в заданном порядке.
+     * Элементы не копируются в список: NLR, LNR и LRN хранят O(h) узлов, LEVEL - O(ширины уровня).
+     * Изменение дерева во время обхода не поддерживается.
+     * @param order порядок обхода
+     */
+    public Iterator<T> iterator(Order order) {
+        return iterator(root, order);
+    }
+
+    /**
+     * Ленивый итератор обхода поддерева в заданном порядке
+     * @param node корень поддерева, null - пустой обход
+     * @param order порядок обхода
+     */
+    public static <T> Iterator<T> iterator(Joint<T> node, Order order) {
+        switch (order) {
+            case NLR:
+                return new PreOrderIterator<>(node);
+            case LNR:
+                return new InOrderIterator<>(node);
+            case LRN:
+                return new PostOrderIterator<>(node);
+            case LEVEL:
+                return new LevelOrderIterator<>(node);
+            default:
+                throw new IllegalArgumentException("Unknown order: " + order);
+        }
+    }
+
+    /**
+     * Последовательный поток элементов в симметричном порядке (LNR)
+     */
+    public Stream<T> stream() {
+        return stream(root, Order.LNR);
+    }
+
+    /**
+     * Последовательный поток элементов в заданном порядке, элементы выдаются по мере обхода
+     * @param order порядок обхода
+     */
+    public Stream<T> stream(Order order) {
+        return stream(root, order);
+    }
+
+    /**
+     * Последовательный поток элементов поддерева в заданном порядке
+     * @param node корень поддерева, null - пустой поток
+     * @param order порядок обхода
+     */
+    public static <T> Stream<T> stream(Joint<T> node, Order order) {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator(node, order), Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false);
     }
 
     /**
-     * Вложенный класс для итератора.
      * Итератор для бинарного дерева, реализующий обход дерева в глубину (in-order traversal).
      * То есть сначала обходятся все левые узлы, затем текущий узел, и в конце - правые узлы.
+     * Стек хранит левую ветвь от текущего узла, O(h) памяти.
      */
-    private static class XTreeIterator<T> implements Iterator<T> {
+    private static class InOrderIterator<T> implements Iterator<T> {
         // Стек для хранения узлов дерева, которые нужно обойти
-        private Stack<Joint<T>> stack;
+        private final ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
 
         /**
          * Конструктор итератора.
-         * Инициализирует стек и добавляет в него все левые узлы начиная с корневого.
+         * Добавляет в стек все левые узлы начиная с корневого.
          *
          * @param root Корневой узел дерева
          */
-        public XTreeIterator(Joint<T> root) {
-            stack = new Stack<>(); // Создаем новый стек
-            pushLeft(root);        // Добавляем в стек все левые узлы от корня до самого нижнего
+        InOrderIterator(Joint<T> root) {
+            pushLeft(root); // Добавляем в стек все левые узлы от корня до самого нижнего
         }
 
         /**
@@ -91,14 +179,113 @@ public class XTree<T> implements Iterable<T> {
 
             // Получаем узел, находящийся на вершине стека
             Joint<T> node = stack.pop();
-            T result = node.data;
 
             // Если у узла есть правый потомок, добавляем его и все его левые узлы в стек
+            pushLeft(node.Right);
+
+            return node.data;
+        }
+    }
+
+    /**
+     * Итератор прямого обхода (NLR): узел выдаётся сразу, правый потомок откладывается в стек до конца левого поддерева.
+     * В стеке только правые потомки узлов текущего пути, O(h) памяти
+     */
+    private static class PreOrderIterator<T> implements Iterator<T> {
+        private final ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+        private Joint<T> next; // Следующий узел обхода
+
+        PreOrderIterator(Joint<T> root) {
+            next = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Joint<T> node = next;
             if (node.Right != null) {
-                pushLeft(node.Right);
+                stack.push(node.Right);
+            }
+            next = node.Left != null ? node.Left : stack.poll();
+            return node.data;
+        }
+    }
+
+    /**
+     * Итератор обратного обхода (LRN) с одним стеком: узел выдаётся, когда из его правого поддерева уже вернулись.
+     * В стеке только узлы текущего пути, O(h) памяти
+     */
+    private static class PostOrderIterator<T> implements Iterator<T> {
+        private final ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+
+        PostOrderIterator(Joint<T> root) {
+            descend(root);
+        }
+
+        // Спуск до первого в порядке LRN узла поддерева: влево, если можно, иначе вправо
+        private void descend(Joint<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.Left != null ? node.Left : node.Right;
             }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Joint<T> node = stack.pop();
+            Joint<T> parent = stack.peek();
+            if (parent != null && parent.Left == node) {
+                descend(parent.Right); // После левого поддерева родителя - его правое поддерево
+            }
+            return node.data;
+        }
+    }
+
+    /**
+     * Итератор обхода по уровням (BFS). Очередь хранит не больше двух соседних уровней
+     */
+    private static class LevelOrderIterator<T> implements Iterator<T> {
+        private final ArrayDeque<Joint<T>> queue = new ArrayDeque<>();
+
+        LevelOrderIterator(Joint<T> root) {
+            if (root != null) {
+                queue.add(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
 
-            return result;
+        @Override
+        public T next() {
+            Joint<T> node = queue.poll();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            if (node.Left != null) {
+                queue.add(node.Left);
+            }
+            if (node.Right != null) {
+                queue.add(node.Right);
+            }
+            return node.data;
         }
     }
 
@@ -145,12 +332,8 @@ public class XTree<T> implements Iterable<T> {
      */
     public static <T> List<T> traverseNLR(Joint<T> node) {
         List<T> result = new ArrayList<>();
-        if (node != null) {
-            result.add(node.data);
-            result.addAll(traverseNLR(node.Left));
-            result.addAll(traverseNLR(node.Right));
-        }
-        return result; // O(n) — нужно обойти каждый узел
+        iterator(node, Order.NLR).forEachRemaining(result::add);
+        return result; // O(n) — нужно обойти каждый узел, без промежуточных списков
     }
 
     /**
@@ -161,12 +344,8 @@ public class XTree<T> implements Iterable<T> {
      */
     public static <T> List<T> traverseLNR(Joint<T> node) {
         List<T> result = new ArrayList<>();
-        if (node != null) {
-            result.addAll(traverseLNR(node.Left));
-            result.add(node.data);
-            result.addAll(traverseLNR(node.Right));
-        }
-        return result; // O(n) — нужно обойти каждый узел
+        iterator(node, Order.LNR).forEachRemaining(result::add);
+        return result; // O(n) — нужно обойти каждый узел, без промежуточных списков
     }
 
     /**
@@ -177,21 +356,17 @@ public class XTree<T> implements Iterable<T> {
      */
     public static <T> List<T> traverseLRN(Joint<T> node) {
         List<T> result = new ArrayList<>();
-        if (node != null) {
-            result.addAll(traverseLRN(node.Left));
-            result.addAll(traverseLRN(node.Right));
-            result.add(node.data);
-        }
-        return result; // O(n) — нужно обойти каждый узел
+        iterator(node, Order.LRN).forEachRemaining(result::add);
+        return result; // O(n) — нужно обойти каждый узел, без промежуточных списков
     }
 
     /**
      * Вывод дерева в консоль
      */
     public void print() {
-        List<T> tRes = traverseLRN(this.root);
-        for (T tRe : tRes) {
-            System.out.println(tRe); // O(n)
+        Iterator<T> iterator = iterator(Order.LRN); // Без промежуточного списка, O(h) памяти
+        while (iterator.hasNext()) {
+            System.out.println(iterator.next()); // O(n)
         }
     }
 
@@ -202,12 +377,21 @@ public class XTree<T> implements Iterable<T> {
      * @param <T>
      */
     public static <T> void applyFunction(Joint<T> node, Consumer<T> func) {
-        if (node != null) {
-            func.accept(node.data);
-            applyFunction(node.Left, func);
-            applyFunction(node.Right, func);
+        if (node == null) {
+            return;
+        }
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>(); // Порядок NLR без рекурсии: правый потомок ждёт под левым
+        stack.push(node);
+        while (!stack.isEmpty()) { // O(n) — обрабатываем каждый узел
+            Joint<T> current = stack.pop();
+            func.accept(current.data);
+            if (current.Right != null) {
+                stack.push(current.Right);
+            }
+            if (current.Left != null) {
+                stack.push(current.Left);
+            }
         }
-        // O(n) — обрабатываем каждый узел
     }
 
     /**
@@ -217,12 +401,21 @@ public class XTree<T> implements Iterable<T> {
      * @param <T>
      */
     public static <T> void applyFunction(Joint<T> node, Function<T, T> func) {
-        if (node != null) {
-            node.data = func.apply(node.data);
-            applyFunction(node.Left, func);
-            applyFunction(node.Right, func);
+        if (node == null) {
+            return;
+        }
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>(); // Порядок NLR без рекурсии
+        stack.push(node);
+        while (!stack.isEmpty()) { // O(n) — обрабатываем каждый узел
+            Joint<T> current = stack.pop();
+            current.data = func.apply(current.data);
+            if (current.Right != null) {
+                stack.push(current.Right);
+            }
+            if (current.Left != null) {
+                stack.push(current.Left);
+            }
         }
-        // O(n) — обрабатываем каждый узел
     }
 
     /**
@@ -231,11 +424,21 @@ public class XTree<T> implements Iterable<T> {
      * @param node
      */
     public void deleteTree(Joint<T> node) {
-        if (node != null) {
-            deleteTree(node.Left);  // Удаляем левое поддерево
-            deleteTree(node.Right); // Удаляем правое поддерево
-            node.Left = null;
-            node.Right = null;
+        if (node == null) {
+            return;
+        }
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) { // Узел отвязывается от потомков, потомки ждут в стеке
+            Joint<T> current = stack.pop();
+            if (current.Left != null) {
+                stack.push(current.Left);
+            }
+            if (current.Right != null) {
+                stack.push(current.Right);
+            }
+            current.Left = null;
+            current.Right = null;
         }
         // O(n) — удаление всех узлов
     }
@@ -250,7 +453,20 @@ public class XTree<T> implements Iterable<T> {
         if (node == null) {
             return 0;
         }
-        return 1 + pcountNodes(node.Left) + pcountNodes(node.Right); // O(n) — считаем каждый узел
+        int count = 0;
+        ArrayDeque<Joint<T>> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) { // O(n) — считаем каждый узел
+            Joint<T> current = stack.pop();
+            count++;
+            if (current.Left != null) {
+                stack.push(current.Left);
+            }
+            if (current.Right != null) {
+                stack.push(current.Right);
+            }
+        }
+        return count;
     }
 
     public int countNodes() {
@@ -265,9 +481,23 @@ public class XTree<T> implements Iterable<T> {
      */
     private static <T> int ptreeDepth(Joint<T> node) {
         if (node == null) return -1;
-        int leftDepth = ptreeDepth(node.Left);
-        int rightDepth = ptreeDepth(node.Right);
-        return Math.max(leftDepth, rightDepth) + 1; // O(n) — нужно посетить каждый узел
+        // Обход по уровням: глубина - число уровней минус один, очередь хранит один уровень
+        int depth = -1;
+        ArrayDeque<Joint<T>> level = new ArrayDeque<>();
+        level.add(node);
+        while (!level.isEmpty()) { // O(n) — нужно посетить каждый узел
+            depth++;
+            for (int i = level.size(); i > 0; i--) {
+                Joint<T> current = level.poll();
+                if (current.Left != null) {
+                    level.add(current.Left);
+                }
+                if (current.Right != null) {
+                    level.add(current.Right);
+                }
+            }
+        }
+        return depth;
     }
 
     public int treeDepth() {
@@ -284,10 +514,23 @@ public class XTree<T> implements Iterable<T> {
      * @param level
      */
     public void printTree(Joint<T> node, int level) {
-        if (node != null) {
-            printTree(node.Right, level + 1);  // Сначала правое поддерево
-            System.out.println(" ".repeat(level * 4) + node.data);  // Печать с отступом
-            printTree(node.Left, level + 1);   // Затем левое поддерево
+        // Обход RNL со стеком вместо рекурсии: рядом с узлом хранится его уровень
+        ArrayDeque<Joint<T>> nodes = new ArrayDeque<>();
+        ArrayDeque<Integer> levels = new ArrayDeque<>();
+        Joint<T> current = node;
+        int depth = level;
+        while (current != null || !nodes.isEmpty()) {
+            while (current != null) { // Сначала правое поддерево
+                nodes.push(current);
+                levels.push(depth);
+                current = current.Right;
+                depth++;
+            }
+            current = nodes.pop();
+            depth = levels.pop();
+            System.out.println(" ".repeat(depth * 4) + current.data);  // Печать с отступом
+            current = current.Left; // Затем левое поддерево
+            depth++;
         }
         // O(n) — обходим все узлы
     }